@@ -0,0 +1,38 @@
+package de.movabo.carbonfootprintapi.benchmark;
+
+import de.movabo.carbonfootprintapi.assets.AasUtil;
+import org.apache.commons.lang3.tuple.Pair;
+import org.eclipse.digitaltwin.aas4j.v3.model.Submodel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction of the global asset ID chains of hierarchical structures
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AasUtilBenchmark {
+    /**
+     * Number of nested nodes of the hierarchy
+     */
+    @Param({"4", "16", "64"})
+    public int depth;
+
+    private Submodel hierarchy;
+
+    @Setup
+    public void setup() {
+        hierarchy = SyntheticAssets.hierarchy(depth * 2, depth);
+    }
+
+    @Benchmark
+    public List<Pair<String, String[]>> getGlobalAssetIdChains() {
+        return AasUtil.getGlobalAssetIdChains(hierarchy);
+    }
+}
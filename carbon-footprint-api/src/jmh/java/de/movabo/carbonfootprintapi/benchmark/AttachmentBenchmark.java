@@ -0,0 +1,51 @@
+package de.movabo.carbonfootprintapi.benchmark;
+
+import de.movabo.carbonfootprintapi.assets.AssetsProvider;
+import de.movabo.carbonfootprintapi.assets.InMemoryAssetProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading attachments from .aasx-files
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttachmentBenchmark {
+    /**
+     * Size of the attachment in bytes
+     */
+    @Param({"1024", "1048576"})
+    public int size;
+
+    private Path directory;
+    private InMemoryAssetProvider provider;
+
+    @Setup
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("aasx-benchmark");
+        File file = directory.resolve("product.aasx").toFile();
+        SyntheticAssets.writeAasx(SyntheticAssets.environment(0, 0), size, file);
+        provider = new InMemoryAssetProvider();
+        provider.addAssets(file, AssetsProvider.AssetType.AASX);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try (var files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public byte[] getAttachment() {
+        return provider.getAttachment(SyntheticAssets.globalAssetId(0), SyntheticAssets.DATASHEET_PATH);
+    }
+}
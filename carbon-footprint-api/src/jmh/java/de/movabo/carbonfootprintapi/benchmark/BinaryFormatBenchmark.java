@@ -0,0 +1,52 @@
+package de.movabo.carbonfootprintapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import de.movabo.carbonfootprintapi.config.JacksonConfig;
+import org.eclipse.digitaltwin.aas4j.v3.model.Submodel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the submodels of an asset (carbon footprint and hierarchy) with the object mapper of the API as
+ * JSON, CBOR and Smile. The encoded sizes are printed during the setup of each format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryFormatBenchmark {
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    /**
+     * Depth of the hierarchical structure of the asset
+     */
+    @Param({"4"})
+    public int depth;
+
+    private ObjectMapper objectMapper;
+    private List<Submodel> submodels;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper json = new JacksonConfig().objectMapper();
+        objectMapper = switch (format) {
+            case "cbor" -> json.copyWith(new CBORFactory());
+            case "smile" -> json.copyWith(new SmileFactory());
+            default -> json;
+        };
+        submodels = SyntheticAssets.environment(42, depth).getSubmodels();
+        System.out.printf("%n%s: %d bytes%n", format, objectMapper.writeValueAsBytes(submodels).length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return objectMapper.writeValueAsBytes(submodels);
+    }
+}
@@ -0,0 +1,96 @@
+package de.movabo.carbonfootprintapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import de.movabo.carbonfootprintapi.config.JacksonConfig;
+import org.eclipse.digitaltwin.aas4j.v3.model.DataTypeDefXsd;
+import org.eclipse.digitaltwin.aas4j.v3.model.EntityType;
+import org.eclipse.digitaltwin.aas4j.v3.model.KeyTypes;
+import org.eclipse.digitaltwin.aas4j.v3.model.ModellingKind;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Serialization of enum constants (as they occur in submodels) with the camel case serializer of the API and with the
+ * previous serializer, which converted the name of the constant for every value written. Deserialization is compared
+ * with the default enum deserializer of Jackson (reading the names of the constants).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnumSerializationBenchmark {
+    private ObjectMapper objectMapper;
+    private ObjectMapper legacyObjectMapper;
+    private ObjectMapper defaultObjectMapper;
+    private List<Enum<?>> values;
+    private byte[] camelCaseTypes;
+    private byte[] nameTypes;
+
+    /**
+     * Serializer of the API before the camel case names were precomputed
+     */
+    public static class LegacyCamelCaseEnumSerializer extends JsonSerializer<Enum> {
+        @Override
+        public void serialize(Enum value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            String camelCaseValue = Arrays.stream(value.name().split("_"))
+                    .map(word -> word.charAt(0) + word.substring(1).toLowerCase())
+                    .collect(Collectors.joining());
+            gen.writeString(camelCaseValue);
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = new JacksonConfig().objectMapper();
+        legacyObjectMapper = new ObjectMapper();
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(Enum.class, new LegacyCamelCaseEnumSerializer());
+        legacyObjectMapper.registerModule(module);
+        defaultObjectMapper = new ObjectMapper();
+
+        values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            values.addAll(Arrays.asList(DataTypeDefXsd.values()));
+            values.addAll(Arrays.asList(ModellingKind.values()));
+            values.addAll(Arrays.asList(KeyTypes.values()));
+            values.addAll(Arrays.asList(EntityType.values()));
+        }
+        DataTypeDefXsd[] types = values.stream()
+                .filter(DataTypeDefXsd.class::isInstance)
+                .toArray(DataTypeDefXsd[]::new);
+        camelCaseTypes = objectMapper.writeValueAsBytes(types);
+        nameTypes = defaultObjectMapper.writeValueAsBytes(types);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(values);
+    }
+
+    @Benchmark
+    public byte[] serializeLegacy() throws Exception {
+        return legacyObjectMapper.writeValueAsBytes(values);
+    }
+
+    @Benchmark
+    public DataTypeDefXsd[] deserialize() throws Exception {
+        return objectMapper.readValue(camelCaseTypes, DataTypeDefXsd[].class);
+    }
+
+    @Benchmark
+    public DataTypeDefXsd[] deserializeDefault() throws Exception {
+        return defaultObjectMapper.readValue(nameTypes, DataTypeDefXsd[].class);
+    }
+}
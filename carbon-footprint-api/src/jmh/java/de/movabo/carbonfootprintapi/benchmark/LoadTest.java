@@ -0,0 +1,135 @@
+package de.movabo.carbonfootprintapi.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load test against a running server which serves a dataset written by {@link SyntheticAssets}, e.g. to
+ * compare request handling on platform threads with {@code --virtualThreads}.
+ * Every client repeatedly requests a random shell, its carbon footprint, its carbon footprint submodel or (for .aasx
+ * datasets) its datasheet and waits for the response before sending the next request.
+ * <p>
+ * {@code java -cp <test classpath> de.movabo.carbonfootprintapi.benchmark.LoadTest <base url> <assets> [clients] [seconds] [attachments]}
+ */
+public final class LoadTest {
+    private LoadTest() {
+    }
+
+    /**
+     * Latencies (in nanoseconds) and errors of a single client
+     */
+    private record Result(long[] latencies, int count, int errors) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("usage: LoadTest <base url, e.g. http://localhost:8080/api/v3.0> <assets> [clients] [seconds] [attachments]");
+            System.exit(1);
+        }
+        String baseUrl = args[0];
+        int assets = Integer.parseInt(args[1]);
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        boolean attachments = args.length > 4 && Boolean.parseBoolean(args[4]);
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        // Warm up the server (JIT, caches) before measuring
+        run(client, baseUrl, assets, clients, Math.max(1, seconds / 5), attachments);
+        long start = System.nanoTime();
+        List<Result> results = run(client, baseUrl, assets, clients, seconds, attachments);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        int requests = results.stream().mapToInt(Result::count).sum();
+        int errors = results.stream().mapToInt(Result::errors).sum();
+        long[] latencies = new long[requests];
+        int offset = 0;
+        for (Result result : results) {
+            System.arraycopy(result.latencies(), 0, latencies, offset, result.count());
+            offset += result.count();
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%d clients, %d requests in %.1f s: %.0f requests/s, %d errors%n",
+                clients, requests, elapsed, requests / elapsed, errors);
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            System.out.printf("p%s: %.2f ms%n", percentile, percentile(latencies, percentile) / 1e6);
+        }
+    }
+
+    private static List<Result> run(HttpClient client, String baseUrl, int assets, int clients, int seconds, boolean attachments) throws Exception {
+        long end = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> client(client, baseUrl, assets, end, attachments)));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+    }
+
+    private static Result client(HttpClient client, String baseUrl, int assets, long end, boolean attachments) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        int errors = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < end) {
+            int index = random.nextInt(assets);
+            String asset = encode(SyntheticAssets.globalAssetId(index));
+            String path = switch (random.nextInt(attachments ? 4 : 3)) {
+                case 0 -> "/shells/" + asset;
+                case 1 -> "/carbon-footprints/" + asset;
+                case 2 -> "/shells/" + asset + "/submodels/" + encode(SyntheticAssets.carbonFootprintId(index));
+                default -> "/shells/" + asset + "/submodels/" + encode(SyntheticAssets.carbonFootprintId(index))
+                        + "/submodel-elements/Datasheet/attachment";
+            };
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() != 200) {
+                    errors++;
+                }
+            } catch (Exception e) {
+                errors++;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return new Result(latencies, count, errors);
+    }
+
+    private static String encode(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,89 @@
+package de.movabo.carbonfootprintapi.benchmark;
+
+import de.movabo.carbonfootprintapi.assets.InMemoryAssetProvider;
+import org.eclipse.digitaltwin.aas4j.v3.model.AssetAdministrationShellDescriptor;
+import org.eclipse.digitaltwin.aas4j.v3.model.Environment;
+import org.eclipse.digitaltwin.aas4j.v3.model.SubmodelElement;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of the in-memory provider: idShortPath resolution, the list of available shells and the descriptors
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProviderBenchmark {
+    /**
+     * Number of assets in the provider (use -p assets=100000 for large datasets)
+     */
+    @Param({"10", "1000", "10000"})
+    public int assets;
+
+    private InMemoryAssetProvider provider;
+    private int next;
+
+    @Setup
+    public void setup() {
+        provider = new InMemoryAssetProvider();
+        for (int i = 0; i < assets; i++) {
+            provider.addEnvironment(SyntheticAssets.environment(i, 4), null, false);
+        }
+    }
+
+    /**
+     * Index of the next asset to look up, so lookups do not always hit the same entries
+     */
+    private int nextIndex() {
+        next = (next + 1) % assets;
+        return next;
+    }
+
+    @Benchmark
+    public SubmodelElement getSubmodelElement() {
+        int index = nextIndex();
+        return provider.getSubmodelElement(SyntheticAssets.globalAssetId(index), SyntheticAssets.carbonFootprintId(index),
+                "ProductCarbonFootprint.PCFGoodsAddressHandover.CityTown");
+    }
+
+    /**
+     * Lookup of a path which does not exist (which has to be normalized before it is known to be missing)
+     */
+    @Benchmark
+    public SubmodelElement getMissingSubmodelElement() {
+        int index = nextIndex();
+        return provider.getSubmodelElement(SyntheticAssets.globalAssetId(index), SyntheticAssets.carbonFootprintId(index),
+                "ProductCarbonFootprint.PCFGoodsAddressHandover.Unknown");
+    }
+
+    @Benchmark
+    public Map<String, String> availableAssetAdministrationShellIds() {
+        return provider.availableAssetAdministrationShellIds();
+    }
+
+    @Benchmark
+    public List<AssetAdministrationShellDescriptor> descriptorPage() {
+        return provider.getAssetAdministrationShellDescriptors(SyntheticAssets.shellId(nextIndex()), 100);
+    }
+
+    /**
+     * Change one asset and generate the descriptors of all assets again
+     */
+    @Benchmark
+    public void descriptorsAfterChange(Blackhole blackhole) {
+        int index = nextIndex();
+        Environment env = SyntheticAssets.environment(index, 4);
+        provider.removeAssets(List.of(SyntheticAssets.shellId(index)));
+        provider.addEnvironment(env, null, false);
+        for (AssetAdministrationShellDescriptor descriptor: provider.getAssetAdministrationShellDescriptors()) {
+            blackhole.consume(descriptor);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package de.movabo.carbonfootprintapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.movabo.carbonfootprintapi.config.JacksonConfig;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.json.JsonSerializer;
+import org.eclipse.digitaltwin.aas4j.v3.model.Submodel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of a carbon footprint submodel, with the object mapper of the API and with aas4j
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    private ObjectMapper objectMapper;
+    private JsonSerializer aasSerializer;
+    private Submodel submodel;
+
+    @Setup
+    public void setup() {
+        objectMapper = new JacksonConfig().objectMapper();
+        aasSerializer = new JsonSerializer();
+        submodel = SyntheticAssets.carbonFootprint(42);
+    }
+
+    @Benchmark
+    public byte[] apiObjectMapper() throws Exception {
+        return objectMapper.writeValueAsBytes(submodel);
+    }
+
+    @Benchmark
+    public String aas4jSerializer() throws Exception {
+        return aasSerializer.write(submodel);
+    }
+}
@@ -0,0 +1,234 @@
+package de.movabo.carbonfootprintapi.benchmark;
+
+import de.movabo.carbonfootprintapi.assets.SemanticIds;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.aasx.AASXSerializer;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.aasx.InMemoryFile;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.json.JsonSerializer;
+import org.eclipse.digitaltwin.aas4j.v3.model.*;
+import org.eclipse.digitaltwin.aas4j.v3.model.impl.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator of synthetic, but realistically shaped assets: every asset has a shell, a carbon footprint submodel
+ * (product and transport footprint) and a hierarchical structure of a configurable depth whose nodes reference the
+ * previous assets. The generated values only depend on the index of the asset, so datasets are reproducible.
+ * <p>
+ * Datasets can be written to a directory to use them with the server (e.g. {@code --aasx "<dir>/*.aasx"}):
+ * {@code java -cp <test classpath> de.movabo.carbonfootprintapi.benchmark.SyntheticAssets <dir> <count> [aasx|json] [depth]}
+ */
+public final class SyntheticAssets {
+    /**
+     * Path of the attachment (datasheet) inside generated .aasx-files
+     */
+    public static final String DATASHEET_PATH = "/aasx/files/datasheet.pdf";
+
+    private SyntheticAssets() {
+    }
+
+    public static String shellId(int index) {
+        return "https://example.com/ids/aas/" + index;
+    }
+
+    public static String globalAssetId(int index) {
+        return "https://example.com/ids/asset/" + index;
+    }
+
+    public static String carbonFootprintId(int index) {
+        return "https://example.com/ids/sm/" + index + "/CarbonFootprint";
+    }
+
+    public static String hierarchyId(int index) {
+        return "https://example.com/ids/sm/" + index + "/HierarchicalStructures";
+    }
+
+    /**
+     * Create the environment of an asset
+     * @param index index of the asset
+     * @param depth depth of the hierarchical structure of the asset (0 for no hierarchy)
+     * @return environment with one shell and its submodels
+     */
+    public static Environment environment(int index, int depth) {
+        List<Submodel> submodels = new ArrayList<>();
+        submodels.add(carbonFootprint(index));
+        if (depth > 0) {
+            submodels.add(hierarchy(index, depth));
+        }
+        AssetAdministrationShell shell = new DefaultAssetAdministrationShell.Builder()
+                .id(shellId(index))
+                .idShort("Product" + index)
+                .assetInformation(new DefaultAssetInformation.Builder()
+                        .assetKind(AssetKind.INSTANCE)
+                        .globalAssetId(globalAssetId(index))
+                        .build())
+                .submodels(submodels.stream().map(SyntheticAssets::submodelReference).toList())
+                .build();
+        return new DefaultEnvironment.Builder()
+                .assetAdministrationShells(List.of(shell))
+                .submodels(submodels)
+                .build();
+    }
+
+    /**
+     * Create a carbon footprint submodel (IDTA 02023) with a product and a transport footprint
+     * @param index index of the asset
+     * @return carbon footprint submodel of the asset
+     */
+    public static Submodel carbonFootprint(int index) {
+        Random random = new Random(index);
+        SubmodelElementCollection address = collection("PCFGoodsAddressHandover", "0173-1#02-ABI497#001",
+                property("Street", "0173-1#02-AAO128#002", DataTypeDefXsd.STRING, "Example Street"),
+                property("HouseNumber", "0173-1#02-AAO130#002", DataTypeDefXsd.STRING, Integer.toString(1 + random.nextInt(200))),
+                property("ZipCode", "0173-1#02-AAO129#002", DataTypeDefXsd.STRING, String.format("%05d", random.nextInt(100_000))),
+                property("CityTown", "0173-1#02-AAO132#002", DataTypeDefXsd.STRING, "Darmstadt"),
+                property("Country", "0173-1#02-AAO259#004", DataTypeDefXsd.STRING, "DE"));
+        SubmodelElementCollection product = collection("ProductCarbonFootprint", "https://admin-shell.io/idta/CarbonFootprint/ProductCarbonFootprint/0/9",
+                property("PCFCalculationMethod", "0173-1#02-ABG854#001", DataTypeDefXsd.STRING, "GHG Protocol"),
+                property("PCFCO2eq", SemanticIds.PCF_CO2EQ, DataTypeDefXsd.DOUBLE, String.format("%.3f", random.nextDouble() * 100)),
+                property("PCFReferenceValueForCalculation", "0173-1#02-ABG856#001", DataTypeDefXsd.STRING, "piece"),
+                property("PCFQuantityOfMeasureForCalculation", "0173-1#02-ABG857#001", DataTypeDefXsd.DOUBLE, "1"),
+                property("PCFLifeCyclePhase", "0173-1#02-ABG858#001", DataTypeDefXsd.STRING, "A1-A3"),
+                address);
+        SubmodelElementCollection transport = collection("TransportCarbonFootprint", "https://admin-shell.io/idta/CarbonFootprint/TransportCarbonFootprint/0/9",
+                property("TCFCalculationMethod", "0173-1#02-ABG859#001", DataTypeDefXsd.STRING, "EN 16258"),
+                property("TCFCO2eq", SemanticIds.TCF_CO2EQ, DataTypeDefXsd.DOUBLE, String.format("%.3f", random.nextDouble() * 10)),
+                property("TCFReferenceValueForCalculation", "0173-1#02-ABG861#001", DataTypeDefXsd.STRING, "piece"),
+                property("TCFQuantityOfMeasureForCalculation", "0173-1#02-ABG862#001", DataTypeDefXsd.DOUBLE, "1"),
+                property("TCFProcessesForGreenhouseGasEmissionInATransportService", "0173-1#02-ABG863#001", DataTypeDefXsd.STRING, "WtW"));
+        return new DefaultSubmodel.Builder()
+                .id(carbonFootprintId(index))
+                .idShort("CarbonFootprint")
+                .kind(ModellingKind.INSTANCE)
+                .semanticId(globalReference(SemanticIds.CARBON_FOOTPRINT_0_9))
+                .description(new DefaultLangStringTextType.Builder().language("en").text("Carbon footprint of product " + index).build())
+                .submodelElements(new ArrayList<>(List.of(product, transport)))
+                .build();
+    }
+
+    /**
+     * Create a hierarchical structure (IDTA 02011) whose entry node contains a chain of nested nodes, each
+     * referencing one of the previous assets
+     * @param index index of the asset
+     * @param depth number of nested nodes
+     * @return hierarchical structures submodel of the asset
+     */
+    public static Submodel hierarchy(int index, int depth) {
+        Entity node = null;
+        for (int level = depth; level >= 1; level--) {
+            List<SubmodelElement> statements = new ArrayList<>();
+            statements.add(property("BulkCount", SemanticIds.HIERARCHY_BULK_COUNT, DataTypeDefXsd.UNSIGNED_LONG, Integer.toString(level)));
+            if (node != null) {
+                statements.add(node);
+            }
+            node = new DefaultEntity.Builder()
+                    .idShort("Node" + level)
+                    .semanticId(globalReference(SemanticIds.HIERARCHY_NODE))
+                    .entityType(EntityType.SELF_MANAGED_ENTITY)
+                    .globalAssetId(globalAssetId(Math.floorMod(index - level, Math.max(index, 1))))
+                    .statements(statements)
+                    .build();
+        }
+        Entity entry = new DefaultEntity.Builder()
+                .idShort("EntryNode")
+                .semanticId(globalReference(SemanticIds.HIERARCHY_ENTRY))
+                .entityType(EntityType.SELF_MANAGED_ENTITY)
+                .globalAssetId(globalAssetId(index))
+                .statements(node == null ? List.of() : List.of(node))
+                .build();
+        return new DefaultSubmodel.Builder()
+                .id(hierarchyId(index))
+                .idShort("HierarchicalStructures")
+                .kind(ModellingKind.INSTANCE)
+                .semanticId(globalReference(SemanticIds.HIERARCHY_STRUCTURE))
+                .submodelElements(List.of(
+                        property("ArcheType", SemanticIds.HIERARCHY_ARCHE_TYPE, DataTypeDefXsd.STRING, "Full"),
+                        entry))
+                .build();
+    }
+
+    /**
+     * Write an environment as .aasx-file, including a datasheet attachment ({@link #DATASHEET_PATH})
+     * @param env environment to write
+     * @param attachmentSize size of the attachment in bytes
+     * @param file file to write to
+     */
+    public static void writeAasx(Environment env, int attachmentSize, File file) throws Exception {
+        byte[] attachment = new byte[attachmentSize];
+        new Random(attachmentSize).nextBytes(attachment);
+        Submodel submodel = env.getSubmodels().get(0);
+        submodel.getSubmodelElements().add(new DefaultFile.Builder()
+                .idShort("Datasheet")
+                .contentType("application/pdf")
+                .value(DATASHEET_PATH)
+                .build());
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            new AASXSerializer().write(env, List.of(new InMemoryFile(attachment, DATASHEET_PATH)), out);
+        }
+    }
+
+    /**
+     * Write a dataset of assets to a directory
+     * @param args directory, number of assets, format (aasx or json, defaults to aasx) and hierarchy depth (defaults to 4)
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("usage: SyntheticAssets <directory> <count> [aasx|json] [depth]");
+            System.exit(1);
+        }
+        File directory = new File(args[0]);
+        int count = Integer.parseInt(args[1]);
+        boolean json = args.length > 2 && args[2].equalsIgnoreCase("json");
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory.getAbsolutePath());
+        }
+        for (int i = 0; i < count; i++) {
+            Environment env = environment(i, depth);
+            if (json) {
+                try (OutputStream out = Files.newOutputStream(new File(directory, "product" + i + ".json").toPath())) {
+                    new JsonSerializer().write(out, env);
+                }
+            } else {
+                writeAasx(env, 16 * 1024, new File(directory, "product" + i + ".aasx"));
+            }
+        }
+        System.out.printf("Wrote %d assets to %s%n", count, directory.getAbsolutePath());
+    }
+
+    private static Property property(String idShort, String semanticId, DataTypeDefXsd valueType, String value) {
+        return new DefaultProperty.Builder()
+                .idShort(idShort)
+                .semanticId(globalReference(semanticId))
+                .valueType(valueType)
+                .value(value)
+                .build();
+    }
+
+    private static SubmodelElementCollection collection(String idShort, String semanticId, SubmodelElement... value) {
+        return new DefaultSubmodelElementCollection.Builder()
+                .idShort(idShort)
+                .semanticId(globalReference(semanticId))
+                .value(new ArrayList<>(List.of(value)))
+                .build();
+    }
+
+    private static Reference globalReference(String value) {
+        return new DefaultReference.Builder()
+                .type(ReferenceTypes.EXTERNAL_REFERENCE)
+                .keys(new DefaultKey.Builder().type(KeyTypes.GLOBAL_REFERENCE).value(value).build())
+                .build();
+    }
+
+    private static Reference submodelReference(Submodel submodel) {
+        return new DefaultReference.Builder()
+                .type(ReferenceTypes.MODEL_REFERENCE)
+                .keys(new DefaultKey.Builder().type(KeyTypes.SUBMODEL).value(submodel.getId()).build())
+                .build();
+    }
+}
@@ -33,10 +33,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
 import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.config.annotation.*;
 
 import java.util.Collections;
+import java.util.concurrent.Executors;
 
 @SpringBootApplication
 @OpenAPIDefinition(
@@ -109,18 +111,34 @@ public class CarbonFootprintApiApplication implements ApplicationRunner {
             public void configurePathMatch(@NotNull PathMatchConfigurer configurer) {
                 configurer.addPathPrefix(bp.getApiPrefix(), c -> c.isAnnotationPresent(RestController.class));
             }
+
+            @Override
+            public void configureAsyncSupport(@NotNull AsyncSupportConfigurer configurer) {
+                if (arguments.isVirtualThreads()) {
+                    // Bodies of StreamingResponseBody responses (batches) are written on their own virtual thread.
+                    // Attachments are returned as Resource and written synchronously on the request thread.
+                    configurer.setTaskExecutor(new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor()));
+                }
+            }
         };
     }
 
     /**
-     * Allow encoded slashes in API urls of tomcat
+     * Allow encoded slashes in API urls of tomcat and handle requests on virtual threads if requested
      * @return factory to allow slashes in urls
      */
     @Bean
     public WebServerFactoryCustomizer<TomcatServletWebServerFactory> tomcatCustomizer() {
         logger.info("Configuring Tomcat to allow encoded slashes.");
-        return factory -> factory.addConnectorCustomizers(connector -> connector.setEncodedSolidusHandling(
-                EncodedSolidusHandling.DECODE.getValue()));
+        return factory -> {
+            factory.addConnectorCustomizers(connector -> connector.setEncodedSolidusHandling(
+                    EncodedSolidusHandling.DECODE.getValue()));
+            if (arguments.isVirtualThreads()) {
+                logger.info("Configuring Tomcat to handle requests on virtual threads.");
+                factory.addProtocolHandlerCustomizers(protocolHandler -> protocolHandler.setExecutor(
+                        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tomcat-handler-", 0).factory())));
+            }
+        };
     }
 
     /**
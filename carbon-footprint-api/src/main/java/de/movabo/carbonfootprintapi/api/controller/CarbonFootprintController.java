@@ -0,0 +1,84 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.api.controller;
+
+import de.movabo.carbonfootprintapi.api.model.ApiError;
+import de.movabo.carbonfootprintapi.api.model.CarbonFootprint;
+import de.movabo.carbonfootprintapi.assets.AssetsProvider;
+import de.movabo.carbonfootprintapi.assets.CarbonFootprintCollector;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.ErrorResponseException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Base64;
+import java.util.List;
+
+@RestController
+@Tag(
+        name = "Carbon Footprint Controller",
+        description = "Get preprocessed carbon footprints of assets"
+)
+public class CarbonFootprintController {
+
+    /**
+     * Collector to walk the hierarchies of the provided assets
+     */
+    private final CarbonFootprintCollector collector;
+
+    public CarbonFootprintController(AssetsProvider assetProvider) {
+        this.collector = new CarbonFootprintCollector(assetProvider);
+    }
+
+    @GetMapping("/carbon-footprints/{aasIdentifier}")
+    @Operation(
+            description = "Returns the carbon footprints of an asset and all assets it consists of (following its " +
+                    "hierarchical structures), including totals which are rolled up with the bulk counts of the parts",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Success: Carbon footprints of the whole hierarchy, starting with the requested asset"
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Asset Administration Shell with this ID not found",
+                            content = @Content(
+                                    schema = @Schema(
+                                            implementation = ApiError.class
+                                    )
+                            )
+                    )
+            }
+    )
+    public List<CarbonFootprint> getCarbonFootprints(
+            @Parameter(description = "The Asset Administration Shell’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String aasIdentifier
+    ) {
+        String aasDecoded = new String(Base64.getUrlDecoder().decode(aasIdentifier));
+        List<CarbonFootprint> footprints = collector.collect(aasDecoded);
+        if (footprints == null) {
+            throw new ErrorResponseException(HttpStatus.NOT_FOUND);
+        }
+        return footprints;
+    }
+}
@@ -16,39 +16,47 @@
 
 package de.movabo.carbonfootprintapi.api.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import de.movabo.carbonfootprintapi.api.model.ApiError;
+import de.movabo.carbonfootprintapi.api.model.BatchRequest;
 import de.movabo.carbonfootprintapi.api.model.PagingResult;
+import de.movabo.carbonfootprintapi.api.model.SemanticIdQuery;
+import de.movabo.carbonfootprintapi.assets.Attachment;
 import de.movabo.carbonfootprintapi.assets.AssetsProvider;
+import de.movabo.carbonfootprintapi.assets.ExternalShellFetcher;
+import de.movabo.carbonfootprintapi.cli.ParsedArguments;
+import de.movabo.carbonfootprintapi.config.CachingJsonHttpMessageConverter;
+import de.movabo.carbonfootprintapi.config.JacksonConfig;
+import com.google.common.hash.Hashing;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.eclipse.digitaltwin.aas4j.v3.dataformat.core.DeserializationException;
 import org.eclipse.digitaltwin.aas4j.v3.model.*;
-import org.springframework.core.io.ByteArrayResource;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.io.AbstractResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.ErrorResponseException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.net.ssl.SSLException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @RestController
@@ -59,16 +67,64 @@ import java.util.stream.Collectors;
 public class ShellsController {
     private static final Logger logger = LogManager.getLogger(ShellsController.class);
 
+    /**
+     * Maximum number of shells and submodels which can be requested in a single batch
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
     /**
      * Provider to access asset shells from
      */
     private final AssetsProvider provider;
 
-    private Map<String, Collection<String>> urlToAssetId;
+    /**
+     * Fetcher to get shells from external URLs with
+     */
+    private final ExternalShellFetcher fetcher;
+
+    /**
+     * Value of the Cache-Control header for responses with cache validators (ETag/Last-Modified)
+     */
+    private final String cacheControl;
+
+    /**
+     * Serialized snapshots of the provider by their names
+     */
+    private final ConcurrentHashMap<String, SerializedSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Formats the message converters can negotiate for shells, submodels and snapshots, in the order of preference
+     */
+    private static final List<MediaType> NEGOTIATED_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, JacksonConfig.APPLICATION_SMILE);
+
+    /**
+     * A serialized snapshot of the provider (e.g. of the asset list) with the hash of its JSON
+     * @param snapshot the (identity of the) snapshot which was serialized
+     * @param json serialized response
+     * @param gzip gzip-compressed response, null if the response is too small to be compressed
+     * @param hash hash of the serialized response
+     */
+    private record SerializedSnapshot(Object snapshot, byte[] json, byte[] gzip, String hash) {
+        /**
+         * Get the ETag of the snapshot in a format
+         * @param type negotiated format of the response
+         * @return ETag of the response in the format
+         */
+        String etag(MediaType type) {
+            return "\"" + Hashing.murmur3_128().hashString(hash + "\0" + type, StandardCharsets.UTF_8) + "\"";
+        }
+    }
+
+    /**
+     * Converter to serialize the items of batches with, so they are serialized (and cached) as single responses
+     */
+    private final CachingJsonHttpMessageConverter jsonConverter;
 
-    public ShellsController(AssetsProvider assetProvider) {
+    public ShellsController(AssetsProvider assetProvider, ExternalShellFetcher fetcher, ParsedArguments arguments, CachingJsonHttpMessageConverter jsonConverter) {
         this.provider = assetProvider;
-        this.urlToAssetId = new HashMap<>();
+        this.fetcher = fetcher;
+        this.jsonConverter = jsonConverter;
+        this.cacheControl = arguments.getCacheControl();
     }
 
     @GetMapping("/external-shells/{url}")
@@ -96,46 +152,35 @@ public class ShellsController {
                                             implementation = ApiError.class
                                     )
                             )
+                    ),
+                    @ApiResponse(
+                            responseCode = "413",
+                            description = "File is larger than the configured maximum (--maxFetchSize)",
+                            content = @Content(
+                                    schema = @Schema(
+                                            implementation = ApiError.class
+                                    )
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "504",
+                            description = "The external server did not respond in time (--readTimeout)",
+                            content = @Content(
+                                    schema = @Schema(
+                                            implementation = ApiError.class
+                                    )
+                            )
                     )
             }
     )
-    public Collection<AssetAdministrationShell> getExternalShell(
+    public CompletableFuture<Collection<AssetAdministrationShell>> getExternalShell(
             @Parameter(description = "url where the shell can be downloaded (UTF8-BASE64-URL-encoded)") @PathVariable String url
-    ) throws IOException, InterruptedException, InvalidFormatException, DeserializationException {
+    ) {
         String urlDecoded = new String(Base64.getUrlDecoder().decode(url));
-        if (this.urlToAssetId.containsKey(urlDecoded)) {
-            return this.urlToAssetId.get(urlDecoded).stream().map(provider::getAssetAdministrationShell).collect(Collectors.toSet());
-        }
-        HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.ALWAYS).build();
-        HttpRequest request;
-        try {
-            URI uri = URI.create(urlDecoded);
-            request = HttpRequest.newBuilder().uri(uri).build();
-        } catch (IllegalArgumentException e) {
-            throw new ErrorResponseException(HttpStatus.UNPROCESSABLE_ENTITY);
-        }
-        HttpResponse<InputStream> response;
-        try {
-            response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
-        } catch (SSLException e) {
-            throw new ErrorResponseException(HttpStatus.UNPROCESSABLE_ENTITY);
-        }
-        if (response.statusCode() != 200) {
-            throw new ErrorResponseException(HttpStatus.NO_CONTENT);
-        }
-
-        InputStream body = response.body();
-        Collection<String> ids;
-        try {
-            ids = provider.addAssets(body, AssetsProvider.AssetType.AUTO, null, true);
-        } catch (DeserializationException e) {
-            throw new ErrorResponseException(HttpStatus.UNPROCESSABLE_ENTITY);
-        }
-        if (ids.isEmpty()) {
-            throw new ErrorResponseException(HttpStatus.NOT_FOUND);
-        }
-        this.urlToAssetId.put(urlDecoded, ids);
-        return ids.stream().map(provider::getAssetAdministrationShell).filter(Objects::nonNull).collect(Collectors.toSet());
+        return fetcher.fetch(urlDecoded).thenApply(ids -> ids.stream()
+                .map(provider::getAssetAdministrationShell)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
     }
 
     @GetMapping("/shells/{aasIdentifier}")
@@ -158,9 +203,13 @@ public class ShellsController {
             }
     )
     public AssetAdministrationShell getShell(
-            @Parameter(description = "The Asset Administration Shell’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String aasIdentifier
+            @Parameter(description = "The Asset Administration Shell’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String aasIdentifier,
+            ServletWebRequest request
     ) {
         String aasDecoded = new String(Base64.getUrlDecoder().decode(aasIdentifier));
+        if (isNegotiatedNotModified(request, aasDecoded, "shell")) {
+            return null;
+        }
         AssetAdministrationShell asset = provider.getAssetAdministrationShell(aasDecoded);
         if (asset == null) {
             throw new ErrorResponseException(HttpStatus.NOT_FOUND);
@@ -192,10 +241,14 @@ public class ShellsController {
     ) // See https://app.swaggerhub.com/apis/Plattform_i40/AssetAdministrationShellRepositoryServiceSpecification/V3.0_SSP-001#/Asset%20Administration%20Shell%20Repository%20API/GetSubmodelById_AasRepository
     public Submodel getShellSubmodel(
             @Parameter(description = "The Asset Administration Shell’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String aasIdentifier,
-            @Parameter(description = "The Submodel’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String submodelIdentifier
+            @Parameter(description = "The Submodel’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String submodelIdentifier,
+            ServletWebRequest request
     ) {
         String aasDecoded = new String(Base64.getUrlDecoder().decode(aasIdentifier));
         String submodelDecoded = new String(Base64.getUrlDecoder().decode(submodelIdentifier));
+        if (provider.hasSubmodel(aasDecoded, submodelDecoded) && isNegotiatedNotModified(request, aasDecoded, "submodel", submodelDecoded)) {
+            return null;
+        }
         Submodel submodel = provider.getSubmodel(aasDecoded, submodelDecoded);
         if (submodel == null) {
             throw new ErrorResponseException(HttpStatus.NOT_FOUND);
@@ -227,14 +280,73 @@ public class ShellsController {
     public SubmodelElement getShellSubmodelElement(
             @Parameter(description = "The Asset Administration Shell’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String aasIdentifier,
             @Parameter(description = "The Submodel’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String submodelIdentifier,
-            @Parameter(description = "idShortPath with ./[]-notation") @PathVariable String idShortPath
+            @Parameter(description = "idShortPath with ./[]-notation") @PathVariable String idShortPath,
+            ServletWebRequest request
     ) {
         String aasDecoded = new String(Base64.getUrlDecoder().decode(aasIdentifier));
         String submodelDecoded = new String(Base64.getUrlDecoder().decode(submodelIdentifier));
+        if (provider.hasSubmodel(aasDecoded, submodelDecoded) && isNegotiatedNotModified(request, aasDecoded, "element", submodelDecoded, idShortPath)) {
+            return null;
+        }
         return provider.getSubmodelElement(aasDecoded, submodelDecoded, idShortPath);
     }
     // @GetMapping("/shells/{aasIdentifier}/submodels/{submodelIdentifier}/{idShortPath}/attachment")
 
+    @GetMapping("/shells/{aasIdentifier}/submodels")
+    @Operation(
+            description = "Returns the Submodels of a shell which have one of the given semantic IDs",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Success: matching Submodels"
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Asset Administration Shell with this ID not found",
+                            content = @Content(
+                                    schema = @Schema(
+                                            implementation = ApiError.class
+                                    )
+                            )
+                    )
+            }
+    )
+    public PagingResult<Submodel> getShellSubmodelsBySemanticId(
+            @Parameter(description = "The Asset Administration Shell’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String aasIdentifier,
+            @Parameter(description = "Semantic IDs of the Submodels (UTF8-BASE64-URL-encoded), can be used multiple times") @RequestParam List<String> semanticId
+    ) {
+        String aasDecoded = new String(Base64.getUrlDecoder().decode(aasIdentifier));
+        if (!provider.hasAssetAdministrationShell(aasDecoded)) {
+            throw new ErrorResponseException(HttpStatus.NOT_FOUND);
+        }
+        List<String> semanticIds = semanticId.stream().map(id -> new String(Base64.getUrlDecoder().decode(id))).toList();
+        return new PagingResult<>(provider.getSubmodelsBySemanticId(aasDecoded, semanticIds));
+    }
+
+    @PostMapping("/submodels-by-semantic-id")
+    @Operation(
+            description = "Returns the Submodels of multiple shells which have one of the given semantic IDs, by the " +
+                    "requested shell IDs. Shells which do not exist are left out.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Success: matching Submodels by shell ID"
+                    )
+            }
+    )
+    public Map<String, List<Submodel>> getSubmodelsBySemanticId(@RequestBody SemanticIdQuery query) {
+        if (query.getAasIdentifiers() == null || query.getSemanticIds() == null) {
+            throw new ErrorResponseException(HttpStatus.BAD_REQUEST);
+        }
+        Map<String, List<Submodel>> submodels = new LinkedHashMap<>();
+        for (String aasIdentifier: query.getAasIdentifiers()) {
+            if (provider.hasAssetAdministrationShell(aasIdentifier)) {
+                submodels.put(aasIdentifier, provider.getSubmodelsBySemanticId(aasIdentifier, query.getSemanticIds()));
+            }
+        }
+        return submodels;
+    }
+
     @GetMapping("/shells/{aasIdentifier}/submodel-refs")
     @Operation(
             description = "Returns the Submodel refs of a shell",
@@ -250,33 +362,292 @@ public class ShellsController {
             }
     )
     public PagingResult<Reference> getSubmodelRefs(
-            @Parameter(description = "The Asset Administration Shell’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String aasIdentifier
+            @Parameter(description = "The Asset Administration Shell’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String aasIdentifier,
+            @Parameter(description = "The maximum number of elements in the response array") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "A server-generated identifier retrieved from pagingMetadata that specifies from which position the result listing should continue") @RequestParam(required = false) String cursor
     ) {
         String aasDecoded = new String(Base64.getUrlDecoder().decode(aasIdentifier));
-        return new PagingResult<>(provider.getAssetAdministrationShellSubmodelReferences(aasDecoded));
+        Iterable<Reference> references = provider.getAssetAdministrationShellSubmodelReferences(aasDecoded);
+        if (references == null) {
+            throw new ErrorResponseException(HttpStatus.NOT_FOUND);
+        }
+        if (limit == null && cursor == null) {
+            return new PagingResult<>(references);
+        }
+        if (limit == null) {
+            throw new ErrorResponseException(HttpStatus.BAD_REQUEST);
+        }
+        checkLimit(limit);
+        List<Reference> all = new ArrayList<>();
+        references.forEach(all::add);
+        int start;
+        try {
+            start = cursor == null ? 0 : Integer.parseInt(decodeCursor(cursor));
+        } catch (NumberFormatException e) {
+            throw new ErrorResponseException(HttpStatus.BAD_REQUEST);
+        }
+        if (start < 0 || start > all.size()) {
+            throw new ErrorResponseException(HttpStatus.BAD_REQUEST);
+        }
+        int end = (int) Math.min(all.size(), (long) start + limit);
+        String next = end < all.size() ? encodeCursor(String.valueOf(end)) : null;
+        return new PagingResult<>(all.subList(start, end), new PagingResult.PagingResultMetadata(next));
+    }
+
+    @PostMapping("/batch")
+    @Operation(
+            description = "Returns multiple shells and submodels at once as a streamed JSON array. Every item contains " +
+                    "the requested aasIdentifier (and submodelIdentifier), the status (200 or 404) and, if found, the " +
+                    "shell or submodel as result. The shells come first, followed by the submodels, each in the " +
+                    "requested order.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Success: results of all requested items"
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Too many items requested",
+                            content = @Content(
+                                    schema = @Schema(
+                                            implementation = ApiError.class
+                                    )
+                            )
+                    )
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> getBatch(@RequestBody BatchRequest batch) {
+        List<String> shells = batch.getShells() == null ? List.of() : batch.getShells();
+        List<BatchRequest.SubmodelRef> submodels = batch.getSubmodels() == null ? List.of() : batch.getSubmodels();
+        if (shells.size() + submodels.size() > MAX_BATCH_SIZE) {
+            throw new ErrorResponseException(HttpStatus.BAD_REQUEST);
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = jsonConverter.getObjectMapper().getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // The generator is flushed before every cached result, which must not flush the response itself
+                generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+                generator.writeStartArray();
+                for (String aasIdentifier: shells) {
+                    AssetAdministrationShell shell = aasIdentifier == null ? null : provider.getAssetAdministrationShell(aasIdentifier);
+                    writeBatchItem(generator, out, aasIdentifier, null, shell, AssetAdministrationShell.class);
+                }
+                for (BatchRequest.SubmodelRef ref: submodels) {
+                    Submodel submodel = ref.getAasIdentifier() == null || ref.getSubmodelIdentifier() == null
+                            ? null : provider.getSubmodel(ref.getAasIdentifier(), ref.getSubmodelIdentifier());
+                    writeBatchItem(generator, out, ref.getAasIdentifier(), ref.getSubmodelIdentifier(), submodel, Submodel.class);
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Write a single item of a batch response.
+     * The cached UTF-8 JSON of the result is copied to the response as is, without decoding it again.
+     * @param generator generator to write the item with
+     * @param out stream the generator writes to
+     * @param aasIdentifier requested shell ID
+     * @param submodelIdentifier requested submodel ID (null if a shell was requested)
+     * @param result found shell or submodel, null if not found
+     * @param type type of the result
+     */
+    private void writeBatchItem(JsonGenerator generator, OutputStream out, String aasIdentifier, String submodelIdentifier, Object result, Class<?> type) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("aasIdentifier", aasIdentifier);
+        if (submodelIdentifier != null) {
+            generator.writeStringField("submodelIdentifier", submodelIdentifier);
+        }
+        if (result == null) {
+            generator.writeNumberField("status", HttpStatus.NOT_FOUND.value());
+        } else {
+            generator.writeNumberField("status", HttpStatus.OK.value());
+            byte[] json = jsonConverter.toJson(result, type);
+            generator.writeFieldName("result");
+            // An empty raw value lets the generator write the separator and count the result as written value
+            generator.writeRawValue("");
+            generator.flush();
+            out.write(json);
+        }
+        generator.writeEndObject();
     }
 
     @GetMapping("/shell-descriptors")
     @Operation(
-            description = "Returns all Asset Administration Shell Descriptors",
+            description = "Returns all Asset Administration Shell Descriptors, sorted by their IDs. Paged if a limit is given.",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
                             description = "List of Asset Administration Shell Descriptors"
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid limit or cursor",
+                            content = @Content(
+                                    schema = @Schema(
+                                            implementation = ApiError.class
+                                    )
+                            )
                     )
             }
     )
-    public PagingResult<AssetAdministrationShellDescriptor> getAllAssetAdministrationShellDescriptors() {
-        Iterable<AssetAdministrationShellDescriptor> descriptors = provider.getAssetAdministrationShellDescriptors();
-        return new PagingResult<>(descriptors);
+    public ResponseEntity<?> getAllAssetAdministrationShellDescriptors(
+            @Parameter(description = "The maximum number of elements in the response array") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "A server-generated identifier retrieved from pagingMetadata that specifies from which position the result listing should continue") @RequestParam(required = false) String cursor,
+            ServletWebRequest request
+    ) throws IOException {
+        if (limit == null) {
+            if (cursor != null) {
+                throw new ErrorResponseException(HttpStatus.BAD_REQUEST);
+            }
+            Iterable<AssetAdministrationShellDescriptor> descriptors = provider.getAssetAdministrationShellDescriptors();
+            return snapshotResponse("shell-descriptors", descriptors, new PagingResult<>(descriptors), request);
+        }
+        checkLimit(limit);
+        // Fetch one more descriptor to know whether there is a next page (without overflowing for the largest limit)
+        List<AssetAdministrationShellDescriptor> descriptors = provider.getAssetAdministrationShellDescriptors(decodeCursor(cursor), Math.min(limit, Integer.MAX_VALUE - 1) + 1);
+        if (descriptors.size() <= limit) {
+            return ResponseEntity.ok(new PagingResult<>(descriptors));
+        }
+        descriptors = descriptors.subList(0, limit);
+        String next = encodeCursor(descriptors.get(limit - 1).getId());
+        return ResponseEntity.ok(new PagingResult<>(descriptors, new PagingResult.PagingResultMetadata(next)));
+    }
+
+    /**
+     * Respond with a snapshot of the provider, which is only serialized again when the provider returns another
+     * snapshot (i.e. the assets changed). Clients can revalidate the snapshot with its ETag.
+     * Larger snapshots are also kept gzip-compressed for clients accepting gzip.
+     * @param name name of the snapshot
+     * @param snapshot immutable snapshot returned by the provider
+     * @param response response to serialize for the snapshot
+     * @param request request to check the validators of
+     * @return serialized response or null if the client's copy is not modified
+     * @throws IOException the response could not be serialized
+     */
+    private ResponseEntity<?> snapshotResponse(String name, Object snapshot, Object response, ServletWebRequest request) throws IOException {
+        SerializedSnapshot serialized = snapshots.get(name);
+        if (serialized == null || serialized.snapshot() != snapshot) {
+            byte[] json = jsonConverter.getObjectMapper().writeValueAsBytes(response);
+            byte[] gzip = json.length < CachingJsonHttpMessageConverter.MIN_COMPRESSED_SIZE ? null : CachingJsonHttpMessageConverter.gzip(json);
+            serialized = new SerializedSnapshot(snapshot, json, gzip, Hashing.murmur3_128().hashBytes(json).toString());
+            snapshots.put(name, serialized);
+        }
+        if (request.getResponse() != null) {
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            if (cacheControl != null) {
+                request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            }
+        }
+        MediaType type = selectedMediaType(request);
+        boolean json = type.equals(MediaType.APPLICATION_JSON);
+        boolean gzip = json && serialized.gzip() != null
+                && CachingJsonHttpMessageConverter.acceptsGzip(request.getRequest().getHeaders(HttpHeaders.ACCEPT_ENCODING));
+        String etag = serialized.etag(type);
+        if (request.checkNotModified(gzip ? CachingJsonHttpMessageConverter.gzipETag(etag) : etag)) {
+            return null;
+        }
+        if (!json) {
+            // Only the JSON of snapshots is kept, binary formats are serialized by the message converters
+            return ResponseEntity.ok(response);
+        }
+        if (serialized.gzip() == null) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(serialized.json());
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(serialized.gzip());
+        }
+        return builder.body(serialized.json());
+    }
+
+    /**
+     * Get the format the message converters select for a response to a request (JSON, CBOR or Smile)
+     * @param request request to check the Accept header of
+     * @return the most specific accepted format with the highest quality, JSON if there is no (valid) Accept header
+     *         or the client accepts any format
+     */
+    private static MediaType selectedMediaType(ServletWebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            List<MediaType> accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            MimeTypeUtils.sortBySpecificity(accepted);
+            for (MediaType type: accepted) {
+                if (type.getQualityValue() <= 0) {
+                    continue;
+                }
+                for (MediaType negotiated: NEGOTIATED_TYPES) {
+                    if (type.isCompatibleWith(negotiated)) {
+                        return negotiated;
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Invalid Accept headers are rejected by the message converters
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Check the limit of a paged request
+     * @param limit requested maximum number of elements
+     */
+    private static void checkLimit(int limit) {
+        if (limit < 1) {
+            throw new ErrorResponseException(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Encode a position in a listing as cursor
+     * @param position last element of the current page
+     * @return the cursor (UTF8-BASE64-URL-encoded position)
+     */
+    private static String encodeCursor(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor created by {@link #encodeCursor(String)}
+     * @param cursor cursor to decode, may be null
+     * @return the encoded position or null if the cursor is null
+     */
+    private static String decodeCursor(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ErrorResponseException(HttpStatus.BAD_REQUEST);
+        }
     }
 
     @GetMapping("/asset/all")
     @Operation(
-            description = "Get the IDs of all available assets"
+            description = "Get the IDs of all available assets",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "IDs (keys) and idShorts (values) of all available assets",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(
+                                            type = "object"
+                                    )
+                            )
+                    )
+            }
     )
-    public Map<String, String> availableAssets() {
-        return provider.availableAssetAdministrationShellIds();
+    public ResponseEntity<?> availableAssets(ServletWebRequest request) throws IOException {
+        Map<String, String> assets = provider.availableAssetAdministrationShellIds();
+        return snapshotResponse("asset/all", assets, assets, request);
     }
 
     @GetMapping("/asset/{aasIdentifier}/submodel/all")
@@ -310,7 +681,11 @@ public class ShellsController {
     )
     public Submodel getSubmodel(
             @Parameter(description = "The Asset Administration Shell’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String aasIdentifier,
-            @PathVariable String submodelId) {
+            @PathVariable String submodelId,
+            ServletWebRequest request) {
+        if (provider.hasSubmodel(aasIdentifier, submodelId) && isNegotiatedNotModified(request, aasIdentifier, "submodel", submodelId)) {
+            return null;
+        }
         Submodel submodel = provider.getSubmodel(aasIdentifier, submodelId);
         if (submodel == null) {
             throw new ErrorResponseException(HttpStatus.NOT_FOUND);
@@ -340,18 +715,20 @@ public class ShellsController {
     public ResponseEntity<Resource> getShellSubmodelElementAttachment(
             @Parameter(description = "The Asset Administration Shell’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String aasIdentifier,
             @Parameter(description = "The Submodel’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String submodelIdentifier,
-            @Parameter(description = "idShortPath with ./[]-notation") @PathVariable String idShortPath
+            @Parameter(description = "idShortPath with ./[]-notation") @PathVariable String idShortPath,
+            ServletWebRequest request
     ) {
         String aasDecoded = new String(Base64.getUrlDecoder().decode(aasIdentifier));
         String submodelDecoded = new String(Base64.getUrlDecoder().decode(submodelIdentifier));
+        if (provider.hasSubmodel(aasDecoded, submodelDecoded) && isNotModified(request, aasDecoded, "attachment", submodelDecoded, idShortPath)) {
+            return null;
+        }
 
-        ImmutablePair<byte[], String> attachment = provider.getSubmodelElementAttachment(aasDecoded, submodelDecoded, idShortPath);
-        byte[] data = attachment.getLeft();
-        ByteArrayResource resource = new ByteArrayResource(data);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.add(HttpHeaders.CONTENT_TYPE, attachment.getRight());
-        return ResponseEntity.ok().headers(headers).contentLength(data.length).body(resource);
+        Attachment attachment = provider.getSubmodelElementAttachmentStream(aasDecoded, submodelDecoded, idShortPath);
+        if (attachment == null) {
+            throw new ErrorResponseException(HttpStatus.NOT_FOUND);
+        }
+        return attachmentResponse(attachment);
     }
 
     @GetMapping("/shells/{aasIdentifier}/asset-information/thumbnail")
@@ -369,18 +746,135 @@ public class ShellsController {
             }
     )
     public ResponseEntity<Resource> getThumbnail(
-            @Parameter(description = "The Asset Administration Shell’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String aasIdentifier
+            @Parameter(description = "The Asset Administration Shell’s unique id (UTF8-BASE64-URL-encoded)") @PathVariable String aasIdentifier,
+            ServletWebRequest request
     ) {
         String aasDecoded = new String(Base64.getUrlDecoder().decode(aasIdentifier));
-        Pair<byte[], String> thumbnail = provider.getThumbnail(aasDecoded);
+        if (isNotModified(request, aasDecoded, "thumbnail")) {
+            return null;
+        }
+        Attachment thumbnail = provider.getThumbnailStream(aasDecoded);
         if (thumbnail == null) {
             throw new ErrorResponseException(HttpStatus.NOT_FOUND);
         }
-        byte[] image = thumbnail.getLeft();
-        ByteArrayResource resource = new ByteArrayResource(image);
+        return attachmentResponse(thumbnail);
+    }
+
+    /**
+     * Check whether the client already has the current version of a part of an asset in the format it negotiated
+     * (JSON, CBOR or Smile). The format is part of the ETag and the response varies by the Accept header.
+     * @see ShellsController#isNotModified(ServletWebRequest, String, String...)
+     */
+    private boolean isNegotiatedNotModified(ServletWebRequest request, String globalAssetId, String... parts) {
+        if (request.getResponse() != null) {
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        String[] negotiated = Arrays.copyOf(parts, parts.length + 1);
+        negotiated[parts.length] = selectedMediaType(request).toString();
+        return isNotModified(request, globalAssetId, negotiated);
+    }
 
+    /**
+     * Check whether the client already has the current version of a part of an asset (by ETag and Last-Modified).
+     * If so, the response is set to 304 (Not Modified) and the caller has to return null.
+     * Otherwise, the ETag, Last-Modified and Cache-Control headers are set for the response.
+     * @param request request to check
+     * @param globalAssetId ID of the asset
+     * @param parts what part of the asset is requested (e.g. "submodel" and its ID)
+     * @return whether the client has the current version and nothing has to be sent
+     */
+    private boolean isNotModified(ServletWebRequest request, String globalAssetId, String... parts) {
+        String version = provider.getVersion(globalAssetId);
+        if (version == null) {
+            return false;
+        }
+        if (cacheControl != null && request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        String etag = "\"" + Hashing.murmur3_128()
+                .hashString(version + "\0" + globalAssetId + "\0" + String.join("\0", parts), StandardCharsets.UTF_8)
+                + "\"";
+        // The JSON converter sends larger responses gzip-compressed under their own ETag, which has to match as well
+        String gzipETag = CachingJsonHttpMessageConverter.gzipETag(etag);
+        if (CachingJsonHttpMessageConverter.acceptsGzip(request.getRequest().getHeaders(HttpHeaders.ACCEPT_ENCODING))
+                && isRequestedETag(request, gzipETag)) {
+            etag = gzipETag;
+        }
+        return request.checkNotModified(etag, provider.getLastModified(globalAssetId));
+    }
+
+    /**
+     * Check whether a client lists an ETag in its If-None-Match header
+     * @param request request to check
+     * @param etag ETag to look for (the weak variant matches as well)
+     * @return whether the client has a copy with the ETag
+     */
+    private static boolean isRequestedETag(ServletWebRequest request, String etag) {
+        Enumeration<String> ifNoneMatch = request.getRequest().getHeaders(HttpHeaders.IF_NONE_MATCH);
+        while (ifNoneMatch.hasMoreElements()) {
+            for (String requested: ifNoneMatch.nextElement().split(",")) {
+                requested = requested.trim();
+                if (requested.startsWith("W/")) {
+                    requested = requested.substring(2);
+                }
+                if (requested.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Create a response streaming an attachment.
+     * The content length and (for requests with a Range header) partial content are handled by Spring,
+     * the attachment is never completely loaded into memory.
+     * @param attachment attachment to stream
+     * @return response streaming the attachment
+     */
+    private static ResponseEntity<Resource> attachmentResponse(Attachment attachment) {
         HttpHeaders headers = new HttpHeaders();
-        headers.add(HttpHeaders.CONTENT_TYPE, thumbnail.getRight());
-        return ResponseEntity.ok().headers(headers).contentLength(image.length).body(resource);
+        if (attachment.contentType() != null) {
+            headers.add(HttpHeaders.CONTENT_TYPE, attachment.contentType());
+        }
+        return ResponseEntity.ok().headers(headers).body(new AttachmentResource(attachment));
+    }
+
+    /**
+     * Resource which opens a new stream of an attachment whenever it is read.
+     * If the length of the attachment is unknown (e.g. of a zip entry without size), it is determined by reading the
+     * attachment once, so Range requests still get correct Content-Range and Content-Length headers.
+     */
+    static class AttachmentResource extends AbstractResource {
+        private final Attachment attachment;
+
+        /**
+         * Length of the attachment once it was determined, -1 before
+         */
+        private volatile long contentLength = -1;
+
+        AttachmentResource(Attachment attachment) {
+            this.attachment = attachment;
+        }
+
+        @Override
+        public @NotNull String getDescription() {
+            return "Attachment (" + attachment.contentType() + ")";
+        }
+
+        @Override
+        public @NotNull InputStream getInputStream() throws IOException {
+            return attachment.open();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            long length = contentLength;
+            if (length < 0) {
+                length = attachment.contentLength() >= 0 ? attachment.contentLength() : super.contentLength();
+                contentLength = length;
+            }
+            return length;
+        }
     }
 }
@@ -0,0 +1,57 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Shells and submodels to get in a single request
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchRequest {
+    /**
+     * IDs of the shells (or global asset IDs) to get (not encoded)
+     */
+    private List<String> shells;
+    /**
+     * Submodels to get
+     */
+    private List<SubmodelRef> submodels;
+
+    /**
+     * A submodel of a specific shell
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SubmodelRef {
+        /**
+         * ID of the shell (or global asset ID) containing the submodel (not encoded)
+         */
+        private String aasIdentifier;
+        /**
+         * ID of the submodel (not encoded)
+         */
+        private String submodelIdentifier;
+    }
+}
@@ -18,18 +18,22 @@ package de.movabo.carbonfootprintapi.api.model;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.apache.commons.lang3.tuple.Pair;
 import org.eclipse.digitaltwin.aas4j.v3.model.Submodel;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class CarbonFootprint {
     /**
-     * The footprint for the asset with assetId
+     * The footprints (CarbonFootprint submodels) for the asset with assetId
      */
-    private Submodel footprint;
+    private List<Submodel> footprints;
     /**
      * assetId of the referenced asset
      */
@@ -38,4 +42,24 @@ public class CarbonFootprint {
      * List of other assetIds (0th item) contained in this asset and more information about their connection (1st item)
      */
     private ArrayList<Pair<String, String[]>> contains;
+    /**
+     * Bulk count of each contained asset (by assetId), 1 if the hierarchy does not state one
+     */
+    private Map<String, Double> bulkCounts;
+    /**
+     * Sum of the PCFCO2eq values of this asset alone
+     */
+    private double productCo2eq;
+    /**
+     * Sum of the TCFCO2eq values of this asset alone
+     */
+    private double transportCo2eq;
+    /**
+     * PCFCO2eq of this asset including all contained assets multiplied by their bulk counts
+     */
+    private double totalProductCo2eq;
+    /**
+     * TCFCO2eq of this asset including all contained assets multiplied by their bulk counts
+     */
+    private double totalTransportCo2eq;
 }
@@ -25,6 +25,7 @@ import org.eclipse.digitaltwin.aas4j.v3.model.impl.*;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static java.lang.System.getLogger;
@@ -54,6 +55,53 @@ public class AasUtil {
         return getOnlyKeyValue(semanticRef, KeyTypes.GLOBAL_REFERENCE);
     }
 
+    /**
+     * Check if an element has one of the given semantic IDs (as value of any key of its semantic ID)
+     * @param element element to check
+     * @param semanticIds semantic IDs to look for
+     * @return whether the element has one of the semantic IDs
+     */
+    public static boolean hasSemanticId(HasSemantics element, String... semanticIds) {
+        Reference semanticRef = element.getSemanticId();
+        if (semanticRef == null || semanticRef.getKeys() == null) {
+            return false;
+        }
+        for (Key key: semanticRef.getKeys()) {
+            for (String semanticId: semanticIds) {
+                if (semanticId.equals(key.getValue())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get all semantic IDs of an element (the values of all keys of its semantic ID)
+     * @param element element to get the semantic IDs of
+     * @return semantic IDs of the element, empty if it has none
+     */
+    public static Set<String> getSemanticIds(HasSemantics element) {
+        Reference semanticRef = element.getSemanticId();
+        if (semanticRef == null || semanticRef.getKeys() == null) {
+            return Set.of();
+        }
+        return semanticRef.getKeys().stream().map(Key::getValue).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    /**
+     * Get the semantic IDs of submodels by the IDs of the submodels
+     * @param submodels submodels to get the semantic IDs of
+     * @return mapping of all submodel IDs to the semantic IDs of the submodel
+     */
+    public static Map<String, Set<String>> getSubmodelSemanticIds(List<Submodel> submodels) {
+        Map<String, Set<String>> semanticIds = new HashMap<>();
+        for (Submodel submodel: submodels) {
+            semanticIds.put(submodel.getId(), getSemanticIds(submodel));
+        }
+        return semanticIds;
+    }
+
     /**
      * Get the value of the only key in existence in the reference
      * @param reference Reference to get the keys value from
@@ -105,6 +153,60 @@ public class AasUtil {
         return idChains;
     }
 
+    /**
+     * Get the direct children of a submodel element
+     * (statements of entities, values of collections and lists)
+     * @param element element to get the children of
+     * @return children of the element, empty if it cannot have any
+     */
+    public static List<SubmodelElement> getChildren(SubmodelElement element) {
+        List<SubmodelElement> children = null;
+        if (element instanceof Entity entity) {
+            children = entity.getStatements();
+        } else if (element instanceof SubmodelElementCollection collection) {
+            children = collection.getValue();
+        } else if (element instanceof SubmodelElementList list) {
+            children = list.getValue();
+        }
+        return children == null ? List.of() : children;
+    }
+
+    /**
+     * Get the submodel element at the end of a reference chain (as returned by {@link #getGlobalAssetIdChains(Submodel)})
+     * @param submodel submodel the chain belongs to
+     * @param chain idShorts of the elements leading to the desired element
+     * @return the element the chain points to or null if it does not exist
+     */
+    public static SubmodelElement getElementByChain(Submodel submodel, String[] chain) {
+        List<SubmodelElement> candidates = submodel.getSubmodelElements();
+        SubmodelElement element = null;
+        for (String idShort: chain) {
+            element = candidates.stream().filter(e -> Objects.equals(idShort, e.getIdShort())).findFirst().orElse(null);
+            if (element == null) {
+                return null;
+            }
+            candidates = getChildren(element);
+        }
+        return element;
+    }
+
+    /**
+     * Get all submodel elements (including nested ones) matching a predicate
+     * @param elements elements to search through
+     * @param predicate predicate the elements have to match
+     * @return all matching elements in depth-first order
+     */
+    public static List<SubmodelElement> findAll(List<SubmodelElement> elements, Predicate<SubmodelElement> predicate) {
+        List<SubmodelElement> found = new ArrayList<>();
+        for (SubmodelElement element: elements) {
+            if (predicate.test(element)) {
+                found.add(element);
+            }
+            found.addAll(findAll(getChildren(element), predicate));
+        }
+        return found;
+    }
+
     /**
      * Create a new array and extend it by one value
      * @param oldArray Old array to extend
@@ -0,0 +1,180 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.assets;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.core.DeserializationException;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.core.SerializationException;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.json.JsonDeserializer;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.json.JsonSerializer;
+import org.eclipse.digitaltwin.aas4j.v3.model.Environment;
+import org.eclipse.digitaltwin.aas4j.v3.model.impl.DefaultEnvironment;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent index of the aas(x)-files which were loaded lazily, so they do not have to be deserialized again
+ * on every start as long as they did not change (by size and modification time).
+ * For every file, it stores the shells (serialized as aas-environment without submodels) and the IDs of the submodels.
+ */
+public class AssetIndex {
+    private static final Logger logger = LogManager.getLogger(AssetIndex.class);
+
+    /**
+     * Name of the index file inside the index directory
+     */
+    static final String FILE_NAME = "asset-index.json";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Index file to load and save the entries from/to
+     */
+    private final Path indexFile;
+
+    /**
+     * Entries by the absolute path of their file
+     */
+    private final ConcurrentHashMap<String, Entry> entries;
+
+    /**
+     * Index entry of a single aas(x)-file
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Entry {
+        private String path;
+        private long size;
+        private long lastModified;
+        private AssetsProvider.AssetType type;
+        /**
+         * Shells of the file, serialized as aas-environment (without submodels)
+         */
+        private String shells;
+        /**
+         * Semantic IDs of the submodels of the file by the submodel IDs
+         */
+        private Map<String, Set<String>> submodelSemanticIds;
+    }
+
+    private AssetIndex(Path indexFile, Map<String, Entry> entries) {
+        this.indexFile = indexFile;
+        this.entries = new ConcurrentHashMap<>(entries);
+    }
+
+    /**
+     * Load the index from a directory, start with an empty index if it does not exist or is unreadable
+     * @param directory directory of the index
+     * @return the loaded index
+     * @throws IOException directory could not be created
+     */
+    public static AssetIndex load(@NotNull File directory) throws IOException {
+        Files.createDirectories(directory.toPath());
+        Path indexFile = directory.toPath().resolve(FILE_NAME);
+        Map<String, Entry> entries = Map.of();
+        if (Files.isRegularFile(indexFile)) {
+            try {
+                entries = mapper.readValue(indexFile.toFile(), new TypeReference<Map<String, Entry>>() {});
+                logger.info(String.format("Loaded asset index %s with %d entries", indexFile, entries.size()));
+            } catch (IOException e) {
+                logger.warn(String.format("Could not read asset index %s, rebuilding it: %s", indexFile, e.getMessage()));
+            }
+        }
+        return new AssetIndex(indexFile, entries);
+    }
+
+    /**
+     * Get the entry of a file if the file did not change since it was indexed
+     * @param file aas(x)-file to get the entry of
+     * @param type as which type the file is loaded
+     * @return entry of the file or null if it is not indexed or outdated
+     */
+    public Entry getValid(@NotNull File file, @NotNull AssetsProvider.AssetType type) {
+        Entry entry = entries.get(file.getAbsolutePath());
+        if (entry == null || entry.getSubmodelSemanticIds() == null || entry.getType() != type || entry.getSize() != file.length() || entry.getLastModified() != file.lastModified()) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Index a file
+     * @param file the aas(x)-file
+     * @param type as which type the file was loaded
+     * @param env deserialized environment of the file
+     * @return the new entry
+     * @throws SerializationException the shells of the environment could not be serialized
+     */
+    public Entry put(@NotNull File file, @NotNull AssetsProvider.AssetType type, @NotNull Environment env) throws SerializationException {
+        Environment shells = new DefaultEnvironment.Builder()
+                .assetAdministrationShells(env.getAssetAdministrationShells())
+                .build();
+        Entry entry = new Entry(
+                file.getAbsolutePath(),
+                file.length(),
+                file.lastModified(),
+                type,
+                new JsonSerializer().write(shells),
+                AasUtil.getSubmodelSemanticIds(env.getSubmodels())
+        );
+        entries.put(entry.getPath(), entry);
+        return entry;
+    }
+
+    /**
+     * Deserialize the shells of an entry
+     * @param entry entry to get the shells from
+     * @return an environment containing only the shells of the entry
+     * @throws DeserializationException the stored shells could not be deserialized
+     */
+    public static Environment getShells(@NotNull Entry entry) throws DeserializationException {
+        return new JsonDeserializer().read(new ByteArrayInputStream(entry.getShells().getBytes(StandardCharsets.UTF_8)), DefaultEnvironment.class);
+    }
+
+    /**
+     * Save the index, dropping the entries of all files which are not in use anymore
+     * @param files files which are currently in use
+     * @throws IOException index could not be written
+     */
+    public void save(@NotNull List<File> files) throws IOException {
+        Set<String> paths = files.stream().map(File::getAbsolutePath).collect(Collectors.toSet());
+        entries.keySet().retainAll(paths);
+        Path tempFile = Files.createTempFile(indexFile.getParent(), FILE_NAME, ".tmp");
+        mapper.writeValue(tempFile.toFile(), entries);
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info(String.format("Saved asset index %s with %d entries", indexFile, entries.size()));
+    }
+}
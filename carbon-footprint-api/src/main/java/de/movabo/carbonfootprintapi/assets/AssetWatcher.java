@@ -0,0 +1,280 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+package de.movabo.carbonfootprintapi.assets;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.movabo.carbonfootprintapi.cli.ParsedArguments;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.digitaltwin.aas4j.v3.model.Environment;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the directories of the aas(x)-files (given as glob patterns) and reloads new, changed and deleted files
+ * in the background.
+ * <p>
+ * Events of a file are debounced, so a file which is still being written is only read once it was not changed for
+ * a while. Only the changed file is read again and its shells are swapped in the provider
+ * (see {@link InMemoryAssetProvider#replaceFile}). If the file cannot be read (e.g. because it is incomplete), the
+ * previous version is kept until the next change of the file.
+ */
+@Service
+public class AssetWatcher implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(AssetWatcher.class);
+
+    /**
+     * Time a file has to be unchanged before it is reloaded
+     */
+    public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(500);
+
+    /**
+     * Provider to reload the files in
+     */
+    private final InMemoryAssetProvider provider;
+
+    /**
+     * Watched glob patterns
+     */
+    private final List<WatchedGlob> globs;
+
+    /**
+     * Whether to only keep the shells of reloaded files in memory
+     */
+    private final boolean lazy;
+
+    /**
+     * Time a file has to be unchanged before it is reloaded
+     */
+    private final Duration debounce;
+
+    /**
+     * Executor to reload the files on (one at a time)
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Scheduled reloads by the changed files
+     */
+    private final ConcurrentHashMap<Path, ScheduledFuture<?>> pending;
+
+    /**
+     * Watched directories by their watch keys
+     */
+    private final ConcurrentHashMap<WatchKey, Path> directories;
+
+    /**
+     * Watch service, null if the watcher was not started
+     */
+    private WatchService watchService;
+
+    /**
+     * Glob pattern of files in a directory which have to be deserialized as a specific type
+     */
+    private record WatchedGlob(Path directory, PathMatcher matcher, AssetsProvider.AssetType type) {
+    }
+
+    /**
+     * Create a watcher for the aas(x)-files of the arguments, which is started if {@code arguments.isWatch()}
+     */
+    @Autowired
+    public AssetWatcher(InMemoryAssetProvider provider, ParsedArguments arguments) throws IOException {
+        this(provider, getGlobs(arguments), arguments.isLazy(), DEFAULT_DEBOUNCE);
+        if (arguments.isWatch()) {
+            start();
+        }
+    }
+
+    /**
+     * Create a watcher, which has to be started with {@link AssetWatcher#start()}
+     * @param provider provider to reload the files in
+     * @param globs glob patterns of the files to watch (as given to --aas and --aasx) and as which type to
+     *              deserialize them
+     * @param lazy whether to only keep the shells of reloaded files in memory
+     * @param debounce time a file has to be unchanged before it is reloaded
+     */
+    public AssetWatcher(InMemoryAssetProvider provider, Map<String, AssetsProvider.AssetType> globs, boolean lazy, Duration debounce) {
+        this.provider = provider;
+        this.lazy = lazy;
+        this.debounce = debounce;
+        this.globs = new ArrayList<>();
+        globs.forEach((glob, type) -> this.globs.add(new WatchedGlob(
+                Paths.get(glob.substring(0, glob.lastIndexOf('/'))),
+                FileSystems.getDefault().getPathMatcher("glob:" + glob),
+                type)));
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("asset-watcher-reload").setDaemon(true).build());
+        this.pending = new ConcurrentHashMap<>();
+        this.directories = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Glob patterns of the aas-files (detected type) and aasx-files of the arguments
+     */
+    private static Map<String, AssetsProvider.AssetType> getGlobs(ParsedArguments arguments) {
+        Map<String, AssetsProvider.AssetType> globs = new LinkedHashMap<>();
+        for (String glob: arguments.getAasGlobs()) {
+            globs.put(glob, AssetsProvider.AssetType.AUTO);
+        }
+        for (String glob: arguments.getAasxGlobs()) {
+            globs.put(glob, AssetsProvider.AssetType.AASX);
+        }
+        return globs;
+    }
+
+    /**
+     * Register the directories of the glob patterns and start watching them
+     * @throws IOException a directory could not be watched
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        for (WatchedGlob glob: globs) {
+            if (!directories.containsValue(glob.directory())) {
+                directories.put(glob.directory().register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), glob.directory());
+                logger.info("Watching " + glob.directory().toAbsolutePath() + " for changed aas(x)-files");
+            }
+        }
+        Thread thread = new ThreadFactoryBuilder().setNameFormat("asset-watcher").setDaemon(true).build().newThread(this::watch);
+        thread.start();
+    }
+
+    /**
+     * Wait for events of the watched directories until the watcher is closed
+     */
+    private void watch() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = directories.get(key);
+            if (directory == null) {
+                key.cancel();
+                continue;
+            }
+            for (WatchEvent<?> event: key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    logger.warn("Missed events of " + directory.toAbsolutePath() + ", reloading all its files");
+                    rescan(directory);
+                } else {
+                    changed(directory.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {
+                logger.warn("Directory " + directory + " is not watched anymore (it is not accessible)");
+                directories.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Schedule a reload of all matching files of a directory and of the removed files which were loaded from it
+     * @param directory directory to rescan
+     */
+    private void rescan(Path directory) {
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+            for (Path path: paths) {
+                changed(path);
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            logger.error("Could not rescan " + directory.toAbsolutePath() + ": " + e.getMessage());
+        }
+        for (File file: provider.getFiles()) {
+            Path path = file.toPath();
+            if (directory.equals(path.getParent()) && !file.exists()) {
+                changed(path);
+            }
+        }
+    }
+
+    /**
+     * Schedule a reload of a file (if it matches one of the glob patterns), postponing an already scheduled reload
+     * @param path changed file
+     */
+    private void changed(Path path) {
+        AssetsProvider.AssetType type = getType(path);
+        if (type == null) {
+            return;
+        }
+        pending.compute(path, (k, scheduled) -> {
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            return executor.schedule(() -> reload(path, type), debounce.toMillis(), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * Get as which type a file has to be deserialized
+     * @param path file to check
+     * @return type of the first matching glob pattern, null if the file is not watched
+     */
+    private AssetsProvider.AssetType getType(Path path) {
+        for (WatchedGlob glob: globs) {
+            if (glob.directory().equals(path.getParent()) && glob.matcher().matches(path)) {
+                return glob.type();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read a file again and replace its shells in the provider (or remove them if the file was deleted)
+     * @param path changed file
+     * @param type as which type to deserialize the file
+     */
+    void reload(@NotNull Path path, @NotNull AssetsProvider.AssetType type) {
+        File file = path.toFile();
+        Timer.Sample sample = Timer.start();
+        long start = System.nanoTime();
+        try {
+            Environment env = file.isFile() ? InMemoryAssetProvider.readEnvironment(file, type) : null;
+            provider.replaceFile(file, env, type, lazy);
+            sample.stop(Metrics.timer("aas.ingest.file", "source", "watch"));
+            logger.info(String.format("Reloaded %s in %d ms", file.getAbsolutePath(), (System.nanoTime() - start) / 1_000_000));
+        } catch (Exception e) {
+            logger.error(String.format("Could not reload %s, keeping its previous version: %s", file.getAbsolutePath(), e.getMessage()));
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        executor.shutdownNow();
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
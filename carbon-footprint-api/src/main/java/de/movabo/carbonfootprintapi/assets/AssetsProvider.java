@@ -26,7 +26,10 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.io.File;
 import java.util.Set;
@@ -63,6 +66,24 @@ public interface AssetsProvider {
      */
     Set<String> availableSubmodelIds(String globalAssetId);
 
+    /**
+     * Get all submodels of an asset which have (at least) one of the given semantic IDs
+     * @param globalAssetId ID of the asset to get the submodels of
+     * @param semanticIds semantic IDs to look for (as value of any key of the semantic ID of a submodel)
+     * @return matching submodels of the asset, empty if there are none or the asset does not exist
+     */
+    default List<Submodel> getSubmodelsBySemanticId(@NotNull String globalAssetId, @NotNull Collection<String> semanticIds) {
+        Set<String> submodelIds = availableSubmodelIds(globalAssetId);
+        if (submodelIds == null) {
+            return List.of();
+        }
+        String[] ids = semanticIds.toArray(String[]::new);
+        return submodelIds.stream()
+                .map(submodelId -> getSubmodel(globalAssetId, submodelId))
+                .filter(submodel -> submodel != null && AasUtil.hasSemanticId(submodel, ids))
+                .toList();
+    }
+
     /**
      * Check if the provider is able to provide an asset
      * @param globalAssetId Asset to check if providable
@@ -80,7 +101,8 @@ public interface AssetsProvider {
     /**
      * Get the IDs (key) and a description (value; e.g. the shortId) of all available assets.
      * The description shall not be used in any other way then to show the user a human-readable
-     * description or name of the asset
+     * description or name of the asset.
+     * Implementations may return the same immutable instance as long as the available assets do not change.
      *
      * @return IDs and description of all available assets which are not hidden
      */
@@ -90,11 +112,30 @@ public interface AssetsProvider {
     /**
      * Get Shell Descriptors of all available AssetAdministrationShells.
      *
+     * Implementations may return the same immutable instance as long as the available assets do not change.
+     *
      * @return Shell Descriptors as per the API Specification https://industrialdigitaltwin.org/wp-content/uploads/2023/04/IDTA-01002-3-0_SpecificationAssetAdministrationShell_Part2_API.pdf
      *         of all assets which are not hidden
      */
     Iterable<AssetAdministrationShellDescriptor> getAssetAdministrationShellDescriptors();
 
+    /**
+     * Get a page of the Shell Descriptors of all available AssetAdministrationShells, sorted by the shell IDs
+     *
+     * @param after ID of the last shell of the previous page, null for the first page
+     * @param limit maximum number of descriptors to return
+     * @return up to limit descriptors of the shells (which are not hidden) with an ID greater than after
+     */
+    default List<AssetAdministrationShellDescriptor> getAssetAdministrationShellDescriptors(String after, int limit) {
+        List<AssetAdministrationShellDescriptor> descriptors = new ArrayList<>();
+        getAssetAdministrationShellDescriptors().forEach(descriptors::add);
+        return descriptors.stream()
+                .sorted(Comparator.comparing(AssetAdministrationShellDescriptor::getId))
+                .filter(descriptor -> after == null || descriptor.getId().compareTo(after) > 0)
+                .limit(limit)
+                .toList();
+    }
+
     /**
      * Get the submodel references of an asset.
      *
@@ -122,6 +163,21 @@ public interface AssetsProvider {
      */
     ImmutablePair<byte[], String> getSubmodelElementAttachment(@NotNull String globalAssetId, @NotNull String submodelId, @NotNull String idShortPath);
 
+    /**
+     * Get the attachment of a submodel element by its id short path without loading it into memory
+     * @param globalAssetId ID of the asset which provides the submodel
+     * @param submodelId ID of the model containing the idShortPaths data
+     * @param idShortPath Path to the desired attachment
+     * @return Streamable attachment of the specified submodel element, null if it does not exist
+     */
+    default Attachment getSubmodelElementAttachmentStream(@NotNull String globalAssetId, @NotNull String submodelId, @NotNull String idShortPath) {
+        ImmutablePair<byte[], String> attachment = getSubmodelElementAttachment(globalAssetId, submodelId, idShortPath);
+        if (attachment == null || attachment.getLeft() == null) {
+            return null;
+        }
+        return Attachment.of(attachment.getLeft(), attachment.getRight());
+    }
+
     /**
      * Get the thumbnail of the asset
      * @param globalAssetId ID of the asset to get the thumbnail from
@@ -129,6 +185,38 @@ public interface AssetsProvider {
      */
     Pair<byte[], String> getThumbnail(@NotNull String globalAssetId);
 
+    /**
+     * Get the thumbnail of the asset without loading it into memory
+     * @param globalAssetId ID of the asset to get the thumbnail from
+     * @return Streamable thumbnail, null if it does not exist
+     */
+    default Attachment getThumbnailStream(@NotNull String globalAssetId) {
+        Pair<byte[], String> thumbnail = getThumbnail(globalAssetId);
+        if (thumbnail == null) {
+            return null;
+        }
+        return Attachment.of(thumbnail.getLeft(), thumbnail.getRight());
+    }
+
+    /**
+     * Get a token identifying the current version of an asset, e.g. to derive HTTP cache validators (ETags) from.
+     * The token changes whenever the asset (or one of its submodels or attachments) may have changed.
+     * @param globalAssetId ID of the asset
+     * @return version token of the asset, null if the asset does not exist or the provider does not support versions
+     */
+    default String getVersion(@NotNull String globalAssetId) {
+        return null;
+    }
+
+    /**
+     * Get the time the asset was last modified
+     * @param globalAssetId ID of the asset
+     * @return time of the last modification in milliseconds since the epoch, -1 if unknown
+     */
+    default long getLastModified(@NotNull String globalAssetId) {
+        return -1;
+    }
+
     /**
      * Whether this provider offers the possibility to add Shells via the addShell method
      * @return whether this provider offers the possibility to add Shells via the addShell method
@@ -138,10 +226,12 @@ public interface AssetsProvider {
     }
 
     /**
-     * Add assets from an input stream
-     * @param asset InputStream which contains the asset
+     * Add assets from an input stream or a file.
+     * If a file is given, the asset is read from the file and the stream is not used at all, so the stream may be
+     * null. Otherwise, the stream is copied to a temp file, which the asset is then provided from.
+     * @param asset InputStream which contains the asset, only read if no file is given
      * @param type as which type this files should be handled, AssetType.AUTO for auto-detection.
-     * @param file file which belongs to the asset. If null, a temp file will be created
+     * @param file file which contains the asset (and its attachments). If null, a temp file will be created
      * @param hide Whether this is a private asset and should only be shown when IDs of it or its submodel are
      *             explicitly stated.
      *             (I.e. not listed in results of AssetsProvider#availableAssetAdministrationShellIds or
@@ -155,6 +245,24 @@ public interface AssetsProvider {
         throw new NotImplementedException("addAsset is not implemented.");
     }
 
+    /**
+     * Remove assets together with their submodels, e.g. hidden assets which were added from an external source
+     * @param ids IDs of the shells to remove (as returned by AssetsProvider#addAssets)
+     */
+    default void removeAssets(Collection<String> ids) {
+        throw new NotImplementedException("removeAssets is not implemented.");
+    }
+
+    /**
+     * Remove assets which are still provided from a file, e.g. when the external source they were fetched from expired.
+     * Shells which were added again from another file in the meantime are kept.
+     * @param ids IDs of the shells to remove (as returned by AssetsProvider#addAssets)
+     * @param file file the shells were added from
+     */
+    default void removeAssets(Collection<String> ids, File file) {
+        throw new NotImplementedException("removeAssets is not implemented.");
+    }
+
     /**
      * Add public assets from an input stream
      * (hide is false)
@@ -0,0 +1,68 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.assets;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Attachment (e.g. of a File submodel element or a thumbnail) which can be streamed instead of being loaded into memory
+ * @param contentType content type of the attachment, may be null
+ * @param contentLength length of the attachment in bytes, -1 if unknown
+ * @param source opens a new stream of the attachment (may be called multiple times, e.g. for range requests)
+ */
+public record Attachment(String contentType, long contentLength, Source source) {
+
+    /**
+     * Opens streams of the contents of an attachment
+     */
+    @FunctionalInterface
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Create an attachment from data in memory
+     * @param data contents of the attachment
+     * @param contentType content type of the attachment
+     * @return attachment streaming the data
+     */
+    public static Attachment of(byte[] data, String contentType) {
+        return new Attachment(contentType, data.length, () -> new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Open a new stream of the contents of the attachment, which has to be closed by the caller
+     * @return stream of the contents
+     * @throws IOException attachment could not be opened
+     */
+    public InputStream open() throws IOException {
+        return source.open();
+    }
+
+    /**
+     * Read the whole attachment into memory
+     * @return contents of the attachment
+     * @throws IOException attachment could not be read
+     */
+    public byte[] readAllBytes() throws IOException {
+        try (InputStream stream = open()) {
+            return stream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.assets;
+
+import de.movabo.carbonfootprintapi.api.model.CarbonFootprint;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.digitaltwin.aas4j.v3.model.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Walk the hierarchical structures of an asset and roll up the carbon footprints of it and all assets it consists of,
+ * so clients do not have to fetch every shell and submodel of a bill of materials on their own.
+ */
+public class CarbonFootprintCollector {
+    private static final Logger logger = LogManager.getLogger(CarbonFootprintCollector.class);
+
+    /**
+     * Provider to access asset shells from
+     */
+    private final AssetsProvider provider;
+
+    public CarbonFootprintCollector(AssetsProvider provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * A part of an asset as stated by a hierarchical structure
+     * @param chain global asset ID of the part and the reference chain to its entity
+     * @param bulkCount how often the part is contained
+     */
+    private record Part(Pair<String, String[]> chain, double bulkCount) {
+    }
+
+    /**
+     * Collect the carbon footprints of an asset and all assets it (recursively) consists of
+     * @param assetId ID or global asset ID of the root asset
+     * @return footprints of all assets of the hierarchy starting with the root asset, null if the root asset does not exist
+     */
+    public List<CarbonFootprint> collect(@NotNull String assetId) {
+        AssetAdministrationShell root = provider.getAssetAdministrationShell(assetId);
+        if (root == null) {
+            return null;
+        }
+        // Mapping of global asset IDs to their parts (by the parts global asset IDs)
+        Map<String, LinkedHashMap<String, Part>> parts = new HashMap<>();
+        // Footprints by global asset ID, in order of traversal
+        Map<String, CarbonFootprint> footprints = new LinkedHashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(root.getAssetInformation().getGlobalAssetId());
+        while (!queue.isEmpty()) {
+            String globalAssetId = queue.poll();
+            if (footprints.containsKey(globalAssetId)) {
+                continue;
+            }
+            footprints.put(globalAssetId, createFootprint(globalAssetId, parts, queue));
+        }
+
+        for (var entry: footprints.entrySet()) {
+            CarbonFootprint footprint = entry.getValue();
+            for (Part part: parts.getOrDefault(entry.getKey(), new LinkedHashMap<>()).values()) {
+                String partId = footprints.get(part.chain().getLeft()).getAssetId();
+                footprint.getContains().add(Pair.of(partId, part.chain().getRight()));
+                footprint.getBulkCounts().put(partId, part.bulkCount());
+            }
+        }
+        Set<String> done = new HashSet<>();
+        for (String globalAssetId: footprints.keySet()) {
+            rollUp(globalAssetId, parts, footprints, done, new HashSet<>());
+        }
+        return new ArrayList<>(footprints.values());
+    }
+
+    /**
+     * Create the footprint of a single asset and register the parts of its hierarchical structures
+     * @param globalAssetId global asset ID of the asset
+     * @param parts mapping of global asset IDs to their parts to add the found parts to
+     * @param queue queue to add the global asset IDs of newly found parts to
+     * @return footprint of the asset without any contained assets
+     */
+    private CarbonFootprint createFootprint(String globalAssetId, Map<String, LinkedHashMap<String, Part>> parts, Queue<String> queue) {
+        AssetAdministrationShell shell = provider.getAssetAdministrationShell(globalAssetId);
+        CarbonFootprint footprint = new CarbonFootprint(
+                new ArrayList<>(), shell == null ? globalAssetId : shell.getId(), new ArrayList<>(), new LinkedHashMap<>(),
+                0, 0, 0, 0
+        );
+        if (shell == null) {
+            logger.warn(String.format("Asset %s is part of a hierarchy but not available, skipping its footprint.", globalAssetId));
+            return footprint;
+        }
+        for (Submodel submodel: getSubmodels(shell)) {
+            if (AasUtil.hasSemanticId(submodel, SemanticIds.CARBON_FOOTPRINT_0_9, SemanticIds.CARBON_FOOTPRINT_1_0)
+                    || submodel.getIdShort() != null && AasUtil.isCarbonFootprint(submodel)) {
+                footprint.getFootprints().add(submodel);
+                footprint.setProductCo2eq(footprint.getProductCo2eq() + sumValues(submodel, SemanticIds.PCF_CO2EQ));
+                footprint.setTransportCo2eq(footprint.getTransportCo2eq() + sumValues(submodel, SemanticIds.TCF_CO2EQ));
+            } else if (AasUtil.hasSemanticId(submodel, SemanticIds.HIERARCHY_STRUCTURE)) {
+                addParts(submodel, parts, queue);
+            }
+        }
+        return footprint;
+    }
+
+    /**
+     * Get all submodels of a shell which are available in the provider
+     * @param shell Shell to get the submodels of
+     * @return available submodels of the shell
+     */
+    private List<Submodel> getSubmodels(AssetAdministrationShell shell) {
+        List<Submodel> submodels = new ArrayList<>();
+        if (shell.getSubmodels() == null) {
+            return submodels;
+        }
+        for (Reference reference: shell.getSubmodels()) {
+            String submodelId;
+            try {
+                submodelId = AasUtil.getSubmodelId(reference);
+            } catch (IllegalStateException e) {
+                logger.warn(String.format("Skipping invalid submodel reference of shell %s: %s", shell.getId(), e.getMessage()));
+                continue;
+            }
+            if (provider.hasSubmodel(shell.getId(), submodelId)) {
+                submodels.add(provider.getSubmodel(shell.getId(), submodelId));
+            }
+        }
+        return submodels;
+    }
+
+    /**
+     * Add all parent-child relations of entities in a hierarchical structure
+     * @param hierarchy HierarchicalStructures submodel
+     * @param parts mapping of global asset IDs to their parts to add the relations to
+     * @param queue queue to add the global asset IDs of newly found parts to
+     */
+    private static void addParts(Submodel hierarchy, Map<String, LinkedHashMap<String, Part>> parts, Queue<String> queue) {
+        if (isOneUp(hierarchy)) {
+            // OneUp structures contain the assets this asset is part of, not the ones it consists of
+            return;
+        }
+        for (Pair<String, String[]> chain: AasUtil.getGlobalAssetIdChains(hierarchy)) {
+            String[] path = chain.getRight();
+            if (path.length < 2
+                    || !(AasUtil.getElementByChain(hierarchy, path) instanceof Entity child)
+                    || !(AasUtil.getElementByChain(hierarchy, Arrays.copyOf(path, path.length - 1)) instanceof Entity parent)
+                    || parent.getGlobalAssetId() == null) {
+                continue;
+            }
+            Part known = parts.computeIfAbsent(parent.getGlobalAssetId(), k -> new LinkedHashMap<>())
+                    .putIfAbsent(chain.getLeft(), new Part(chain, getBulkCount(child)));
+            if (known == null) {
+                queue.add(chain.getLeft());
+            }
+        }
+    }
+
+    /**
+     * Check whether a hierarchical structure is of the arche type OneUp
+     * @param hierarchy HierarchicalStructures submodel
+     * @return whether it is of the arche type OneUp
+     */
+    private static boolean isOneUp(Submodel hierarchy) {
+        return hierarchy.getSubmodelElements().stream()
+                .filter(e -> AasUtil.hasSemanticId(e, SemanticIds.HIERARCHY_ARCHE_TYPE) || "ArcheType".equals(e.getIdShort()))
+                .anyMatch(e -> e instanceof Property property && "OneUp".equals(property.getValue()));
+    }
+
+    /**
+     * Get the bulk count of a node of a hierarchical structure
+     * @param node Node to get the bulk count of
+     * @return the bulk count, 1 if not stated or invalid
+     */
+    private static double getBulkCount(Entity node) {
+        for (SubmodelElement statement: AasUtil.getChildren(node)) {
+            if (statement instanceof Property property
+                    && (AasUtil.hasSemanticId(property, SemanticIds.HIERARCHY_BULK_COUNT) || "BulkCount".equals(property.getIdShort()))) {
+                try {
+                    return Double.parseDouble(property.getValue());
+                } catch (NullPointerException | NumberFormatException e) {
+                    logger.warn(String.format("Invalid bulk count %s of node %s, assuming 1.", property.getValue(), node.getIdShort()));
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Sum up the values of all properties with a specific semantic ID in a submodel
+     * @param submodel Submodel to search through
+     * @param semanticId semantic ID of the properties to sum up
+     * @return sum of all (numeric) values
+     */
+    private static double sumValues(Submodel submodel, String semanticId) {
+        double sum = 0;
+        for (SubmodelElement element: AasUtil.findAll(submodel.getSubmodelElements(), e -> AasUtil.hasSemanticId(e, semanticId))) {
+            if (element instanceof Property property && property.getValue() != null) {
+                try {
+                    sum += Double.parseDouble(property.getValue());
+                } catch (NumberFormatException e) {
+                    logger.warn(String.format("Invalid value %s of %s in submodel %s, skipping.", property.getValue(), property.getIdShort(), submodel.getId()));
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Calculate the total footprints of an asset including all its parts multiplied by their bulk counts
+     * @param globalAssetId global asset ID of the asset
+     * @param parts mapping of global asset IDs to their parts
+     * @param footprints footprints by global asset ID
+     * @param done global asset IDs whose totals are already calculated
+     * @param path global asset IDs of the current recursion (to detect cycles)
+     */
+    private static void rollUp(
+            String globalAssetId,
+            Map<String, LinkedHashMap<String, Part>> parts,
+            Map<String, CarbonFootprint> footprints,
+            Set<String> done,
+            Set<String> path
+    ) {
+        if (done.contains(globalAssetId)) {
+            return;
+        }
+        CarbonFootprint footprint = footprints.get(globalAssetId);
+        double product = footprint.getProductCo2eq();
+        double transport = footprint.getTransportCo2eq();
+        path.add(globalAssetId);
+        for (Part part: parts.getOrDefault(globalAssetId, new LinkedHashMap<>()).values()) {
+            String partId = part.chain().getLeft();
+            if (path.contains(partId)) {
+                logger.warn(String.format("Hierarchy of %s contains a cycle via %s, ignoring it.", globalAssetId, partId));
+                continue;
+            }
+            rollUp(partId, parts, footprints, done, path);
+            product += part.bulkCount() * footprints.get(partId).getTotalProductCo2eq();
+            transport += part.bulkCount() * footprints.get(partId).getTotalTransportCo2eq();
+        }
+        path.remove(globalAssetId);
+        footprint.setTotalProductCo2eq(product);
+        footprint.setTotalTransportCo2eq(transport);
+        done.add(globalAssetId);
+    }
+}
@@ -0,0 +1,286 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+package de.movabo.carbonfootprintapi.assets;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.core.DeserializationException;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.core.SerializationException;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.json.JsonDeserializer;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.json.JsonSerializer;
+import org.eclipse.digitaltwin.aas4j.v3.model.Submodel;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact read-only representation of submodels: every submodel is kept as deflated JSON (one byte array instead
+ * of a graph of thousands of small objects) and only materialized back to aas4j objects when it is requested.
+ * Materialized submodels are kept in a bounded LRU cache, so frequently requested submodels are not inflated and
+ * deserialized again on every request.
+ * <p>
+ * Deflating removes the redundancy of the object graph (repeated idShorts, semantic IDs, value types and
+ * references) without a separate dictionary, which typically makes a submodel 10 to 50 times smaller than its
+ * materialized form.
+ */
+public class CompactSubmodelStore {
+
+    /**
+     * Materialized submodels by their compact representation (compared by identity)
+     */
+    private final LoadingCache<CompactSubmodel, Submodel> materialized;
+
+    /**
+     * Compact representations of submodels which were not yet garbage collected (weakly keyed by the identity of
+     * the submodel), so a submodel bound to multiple (global) asset IDs is only kept once
+     */
+    private final Cache<Submodel, CompactSubmodel> compacted;
+
+    /**
+     * Deflated JSON of a submodel
+     */
+    public static final class CompactSubmodel {
+        private final byte[] deflated;
+        private final int jsonLength;
+
+        private CompactSubmodel(byte[] deflated, int jsonLength) {
+            this.deflated = deflated;
+            this.jsonLength = jsonLength;
+        }
+    }
+
+    /**
+     * Sizes of the compact submodels
+     * @param submodels number of distinct compact submodels
+     * @param compactBytes size of their deflated JSON
+     * @param jsonBytes size of their JSON
+     * @param materialized number of currently materialized submodels
+     */
+    public record Stats(long submodels, long compactBytes, long jsonBytes, long materialized) {
+    }
+
+    /**
+     * Create a store
+     * @param maximumMaterialized maximum number of materialized submodels to keep
+     */
+    public CompactSubmodelStore(long maximumMaterialized) {
+        materialized = CacheBuilder.newBuilder()
+                .maximumSize(maximumMaterialized)
+                .recordStats()
+                .build(CacheLoader.from(CompactSubmodelStore::inflate));
+        compacted = CacheBuilder.newBuilder()
+                .weakKeys()
+                .build();
+    }
+
+    /**
+     * Get the compact representation of a submodel, reusing the one of an earlier call for the same instance
+     * @param submodel submodel to convert
+     * @return deflated JSON of the submodel
+     */
+    public CompactSubmodel compactOf(@NotNull Submodel submodel) {
+        try {
+            return compacted.get(submodel, () -> deflate(submodel));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Convert a submodel to its compact representation
+     * @param submodel submodel to convert
+     * @return deflated JSON of the submodel
+     */
+    public static CompactSubmodel deflate(@NotNull Submodel submodel) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CountingOutputStream json = new CountingOutputStream(new DeflaterOutputStream(out, deflater));
+            new JsonSerializer().write(json, submodel);
+            json.close();
+            return new CompactSubmodel(out.toByteArray(), (int) json.getCount());
+        } catch (SerializationException | IOException e) {
+            throw new IllegalStateException("Could not serialize the submodel " + submodel.getId(), e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Convert a compact submodel back to an aas4j object (without caching it)
+     * @param compact compact representation of the submodel
+     * @return deserialized submodel
+     */
+    public static Submodel inflate(@NotNull CompactSubmodel compact) {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(compact.deflated))) {
+            return new JsonDeserializer().read(in, Submodel.class);
+        } catch (DeserializationException e) {
+            throw new IllegalStateException("Could not deserialize a compact submodel", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the materialized form of a compact submodel, the same instance is returned as long as it is cached
+     * @param compact compact representation of the submodel
+     * @return the submodel
+     */
+    public Submodel materialize(@NotNull CompactSubmodel compact) {
+        try {
+            return materialized.getUnchecked(compact);
+        } catch (UncheckedExecutionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Create an immutable map of submodels which are kept in their compact representation
+     * @param submodels submodels by their IDs
+     * @return map which materializes the submodels when they are requested
+     */
+    public Map<String, Submodel> compact(@NotNull Map<String, Submodel> submodels) {
+        if (submodels instanceof CompactSubmodelMap map && map.store == this) {
+            return map;
+        }
+        Map<String, CompactSubmodel> compact = new HashMap<>();
+        submodels.forEach((id, submodel) -> compact.put(id, compactOf(submodel)));
+        return new CompactSubmodelMap(this, compact);
+    }
+
+    /**
+     * Create a copy of a (compact) submodel map with an additional submodel
+     * @param submodels submodels by their IDs, null for an empty map
+     * @param submodel submodel to add (replacing a submodel with the same ID)
+     * @return map which materializes the submodels when they are requested
+     */
+    public Map<String, Submodel> with(Map<String, Submodel> submodels, @NotNull Submodel submodel) {
+        Map<String, CompactSubmodel> compact = new HashMap<>();
+        if (submodels instanceof CompactSubmodelMap map && map.store == this) {
+            compact.putAll(map.compact);
+        } else if (submodels != null) {
+            submodels.forEach((id, existing) -> compact.put(id, compactOf(existing)));
+        }
+        compact.put(submodel.getId(), compactOf(submodel));
+        return new CompactSubmodelMap(this, compact);
+    }
+
+    /**
+     * Get the sizes of the compact submodels of some maps
+     * @param maps maps to inspect (e.g. all submodel maps of a provider), maps which are not compact are skipped
+     * @return sizes of the distinct compact submodels
+     */
+    public Stats stats(@NotNull Iterable<Map<String, Submodel>> maps) {
+        Set<CompactSubmodel> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long compactBytes = 0;
+        long jsonBytes = 0;
+        for (Map<String, Submodel> map: maps) {
+            if (!(map instanceof CompactSubmodelMap compactMap)) {
+                continue;
+            }
+            for (CompactSubmodel compact: compactMap.compact.values()) {
+                if (seen.add(compact)) {
+                    compactBytes += compact.deflated.length;
+                    jsonBytes += compact.jsonLength;
+                }
+            }
+        }
+        return new Stats(seen.size(), compactBytes, jsonBytes, materialized.size());
+    }
+
+    /**
+     * Get hit and miss statistics of the materialized submodels
+     * @return statistics of the cache of materialized submodels
+     */
+    public CacheStats cacheStats() {
+        return materialized.stats();
+    }
+
+    /**
+     * Immutable map of compact submodels which materializes a submodel when its value is requested
+     */
+    private static class CompactSubmodelMap extends AbstractMap<String, Submodel> {
+        private final CompactSubmodelStore store;
+        private final Map<String, CompactSubmodel> compact;
+
+        CompactSubmodelMap(CompactSubmodelStore store, Map<String, CompactSubmodel> compact) {
+            this.store = store;
+            this.compact = Collections.unmodifiableMap(compact);
+        }
+
+        @Override
+        public Submodel get(Object key) {
+            CompactSubmodel submodel = compact.get(key);
+            return submodel == null ? null : store.materialize(submodel);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return compact.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return compact.size();
+        }
+
+        @Override
+        public @NotNull Set<String> keySet() {
+            return compact.keySet();
+        }
+
+        @Override
+        public @NotNull Set<Entry<String, Submodel>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public @NotNull Iterator<Entry<String, Submodel>> iterator() {
+                    Iterator<Entry<String, CompactSubmodel>> entries = compact.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Submodel> next() {
+                            Entry<String, CompactSubmodel> entry = entries.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), store.materialize(entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return compact.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.assets;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.digitaltwin.aas4j.v3.model.Environment;
+import org.eclipse.digitaltwin.aas4j.v3.model.Submodel;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Size-bounded LRU cache of the submodels of fully deserialized aas(x)-files.
+ * Used for lazily loaded files: only their shells and submodel IDs stay in memory, the submodels themselves are
+ * deserialized the first time they are requested and evicted again when they were not used for a while.
+ */
+public class EnvironmentCache {
+    private static final Logger logger = LogManager.getLogger(EnvironmentCache.class);
+
+    /**
+     * As which type the registered files have to be deserialized. Files stay registered when their submodels are
+     * evicted (so they can be loaded again) until they are unregistered.
+     */
+    private final ConcurrentHashMap<File, AssetsProvider.AssetType> types;
+
+    /**
+     * Submodels (by ID) of the resident files
+     */
+    private final LoadingCache<File, Map<String, Submodel>> submodels;
+
+    /**
+     * Create a cache
+     * @param maximumSize Maximum number of files whose submodels are kept in memory
+     */
+    public EnvironmentCache(long maximumSize) {
+        types = new ConcurrentHashMap<>();
+        submodels = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build(CacheLoader.from(this::load));
+    }
+
+    /**
+     * Register a file whose submodels can be loaded by the cache
+     * @param file aas(x)-file
+     * @param type as which type the file has to be deserialized
+     */
+    public void register(@NotNull File file, @NotNull AssetsProvider.AssetType type) {
+        types.put(file, type);
+    }
+
+    /**
+     * Get a submodel from a registered file, deserializing the file if it is not resident
+     * @param file aas(x)-file containing the submodel
+     * @param submodelId ID of the submodel
+     * @return the submodel or null if the file is not registered, cannot be deserialized or does not contain it
+     */
+    public Submodel getSubmodel(@NotNull File file, @NotNull String submodelId) {
+        if (!types.containsKey(file)) {
+            return null;
+        }
+        try {
+            return submodels.get(file).get(submodelId);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            logger.error(String.format("Could not load submodel %s from %s, stack trace:", submodelId, file.getAbsolutePath()), e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Drop the resident submodels of a file
+     * @param file aas(x)-file whose submodels to drop
+     */
+    public void invalidate(@NotNull File file) {
+        submodels.invalidate(file);
+    }
+
+    /**
+     * Forget a file which is no longer provided and drop its resident submodels
+     * @param file aas(x)-file to unregister
+     */
+    public void unregister(@NotNull File file) {
+        types.remove(file);
+        submodels.invalidate(file);
+    }
+
+    /**
+     * Get the number of registered files
+     * @return number of files whose submodels can be loaded by the cache
+     */
+    public int registeredFiles() {
+        return types.size();
+    }
+
+    /**
+     * Get hit and miss statistics of the cache
+     * @return statistics of the cache
+     */
+    public CacheStats stats() {
+        return submodels.stats();
+    }
+
+    /**
+     * Deserialize the submodels of a registered file
+     * @param file file to deserialize
+     * @return submodels of the file by their IDs
+     */
+    private Map<String, Submodel> load(File file) {
+        long start = System.nanoTime();
+        Environment env;
+        try {
+            env = InMemoryAssetProvider.readEnvironment(file, types.get(file));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not deserialize " + file.getAbsolutePath(), e);
+        }
+        Map<String, Submodel> byId = new HashMap<>();
+        for (Submodel submodel: env.getSubmodels()) {
+            byId.putIfAbsent(submodel.getId(), submodel);
+        }
+        logger.info(String.format("Loaded %d submodels of %s on demand in %d ms (%d files resident)",
+                byId.size(), file.getAbsolutePath(), (System.nanoTime() - start) / 1_000_000, submodels.size()));
+        return byId;
+    }
+}
@@ -0,0 +1,209 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.assets;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageRelationshipCollection;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.aasx.AASXDeserializer;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.core.DeserializationException;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.json.JsonDeserializer;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.xml.XmlDeserializer;
+import org.eclipse.digitaltwin.aas4j.v3.model.Environment;
+import org.eclipse.digitaltwin.aas4j.v3.model.impl.DefaultEnvironment;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+
+/**
+ * Deserialize environments from .aas(x)-files.
+ * The format of a file is sniffed from its first bytes (zip magic bytes for .aasx, a leading { for JSON and a
+ * leading &lt; for XML), so each file is parsed only once with the matching deserializer. Files are always read as
+ * streams, .aasx-files are opened as zip files so only the environment part is read.
+ */
+public final class EnvironmentReader {
+    private static final Logger logger = LogManager.getLogger(EnvironmentReader.class);
+
+    /**
+     * Relationship types of the origin and the environment part of an .aasx-file (current and legacy namespace)
+     */
+    private static final String[] ORIGIN_RELATIONSHIP_TYPES = {
+            "http://admin-shell.io/aasx/relationships/aasx-origin",
+            "http://www.admin-shell.io/aasx/relationships/aasx-origin"
+    };
+    private static final String[] SPEC_RELATIONSHIP_TYPES = {
+            "http://admin-shell.io/aasx/relationships/aas-spec",
+            "http://www.admin-shell.io/aasx/relationships/aas-spec"
+    };
+
+    /**
+     * Number of bytes to look at when sniffing the format (leading whitespace and byte order marks are skipped)
+     */
+    private static final int SNIFF_LENGTH = 1024;
+
+    private EnvironmentReader() {
+    }
+
+    /**
+     * Detect the format of a serialized environment
+     * @param file file containing the environment
+     * @return the detected type (JSON, XML or AASX), AUTO if it could not be detected
+     * @throws IOException the file could not be read
+     */
+    public static AssetsProvider.AssetType sniff(@NotNull File file) throws IOException {
+        byte[] head = new byte[SNIFF_LENGTH];
+        int length;
+        try (InputStream in = new FileInputStream(file)) {
+            length = in.readNBytes(head, 0, head.length);
+        }
+        if (length >= 4 && head[0] == 'P' && head[1] == 'K' && head[2] == 3 && head[3] == 4) {
+            return AssetsProvider.AssetType.AASX;
+        }
+        int i = 0;
+        // UTF-8 byte order mark
+        if (length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            i = 3;
+        }
+        while (i < length && Character.isWhitespace(head[i])) {
+            i++;
+        }
+        if (i < length && head[i] == '{') {
+            return AssetsProvider.AssetType.JSON;
+        }
+        if (i < length && head[i] == '<') {
+            return AssetsProvider.AssetType.XML;
+        }
+        return AssetsProvider.AssetType.AUTO;
+    }
+
+    /**
+     * Deserialize the environment of a file
+     * @param file .aas- or .aasx-file to deserialize
+     * @param type as which type the file should be handled, AssetType.AUTO for detection from its content
+     * @return the deserialized environment
+     * @throws IOException Errors while reading the file
+     * @throws DeserializationException Error while parsing the environment (or its format could not be detected)
+     * @throws InvalidFormatException Error while opening an .aasx-file
+     */
+    public static Environment read(@NotNull File file, @NotNull AssetsProvider.AssetType type) throws IOException, DeserializationException, InvalidFormatException {
+        if (type == AssetsProvider.AssetType.AUTO) {
+            type = sniff(file);
+            if (type == AssetsProvider.AssetType.AUTO) {
+                throw new DeserializationException("Could not detect the format of " + file.getName() + ", it is neither AASX, JSON nor XML.");
+            }
+        }
+        logger.info(String.format("Parsing %s as %s", file.getName(), type));
+        Timer.Sample sample = Timer.start();
+        String outcome = "failure";
+        try {
+            Environment env = switch (type) {
+                case JSON -> {
+                    try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                        yield readJson(in);
+                    }
+                }
+                case XML -> {
+                    try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                        yield new XmlDeserializer().read(in);
+                    }
+                }
+                case AASX -> readAasx(file);
+                case AUTO -> throw new IllegalStateException("Type has been detected already.");
+            };
+            outcome = "success";
+            return env;
+        } finally {
+            sample.stop(Metrics.timer("aas.ingest.deserialize", "format", type.name(), "outcome", outcome));
+        }
+    }
+
+    /**
+     * Deserialize an environment from an .aasx-file by reading only its environment part
+     * (falls back to reading the whole package if the part cannot be found)
+     */
+    private static Environment readAasx(File file) throws IOException, DeserializationException, InvalidFormatException {
+        OPCPackage aasx = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            PackagePart spec = getSpecPart(aasx);
+            if (spec != null) {
+                try (InputStream in = new BufferedInputStream(spec.getInputStream())) {
+                    if ("json".equalsIgnoreCase(spec.getPartName().getExtension())) {
+                        return readJson(in);
+                    }
+                    return new XmlDeserializer().read(in);
+                }
+            }
+        } finally {
+            aasx.revert();
+        }
+        logger.info(String.format("Could not find the environment part of %s, reading the whole package", file.getName()));
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return new AASXDeserializer(in).read();
+        }
+    }
+
+    /**
+     * Find the environment part of an .aasx-package (the aas-spec part of the origin)
+     */
+    private static PackagePart getSpecPart(OPCPackage aasx) throws InvalidFormatException {
+        for (String originType: ORIGIN_RELATIONSHIP_TYPES) {
+            PackageRelationshipCollection origins = aasx.getRelationshipsByType(originType);
+            if (origins.size() == 0) {
+                continue;
+            }
+            PackagePart origin = aasx.getPart(origins.getRelationship(0));
+            if (origin == null) {
+                continue;
+            }
+            for (String specType: SPEC_RELATIONSHIP_TYPES) {
+                PackageRelationshipCollection specs = origin.getRelationshipsByType(specType);
+                if (specs.size() > 0) {
+                    return origin.getRelatedPart(specs.getRelationship(0));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Deserialize an environment from JSON, skipping a leading UTF-8 byte order mark (which the deserializer rejects)
+     * @param in buffered stream of the JSON (has to support mark/reset)
+     */
+    private static Environment readJson(InputStream in) throws IOException, DeserializationException {
+        skipByteOrderMark(in);
+        return new JsonDeserializer().read(in, DefaultEnvironment.class);
+    }
+
+    /**
+     * Skip a UTF-8 byte order mark at the current position of a stream
+     * @param in stream which supports mark/reset
+     * @throws IOException the stream could not be read
+     */
+    private static void skipByteOrderMark(InputStream in) throws IOException {
+        in.mark(3);
+        byte[] head = in.readNBytes(3);
+        if (head.length < 3 || (head[0] & 0xFF) != 0xEF || (head[1] & 0xFF) != 0xBB || (head[2] & 0xFF) != 0xBF) {
+            in.reset();
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.assets;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import de.movabo.carbonfootprintapi.cli.ParsedArguments;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.core.DeserializationException;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.ErrorResponseException;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fetches environments from external URLs and adds their shells as hidden assets to the provider.
+ * <p>
+ * All requests share one asynchronous HTTP client. Concurrent requests for the same URL share a single download
+ * (single flight). Fetched URLs are kept in a cache bounded by size and age. When an entry is evicted, its shells
+ * are removed from the provider again and are fetched anew on the next request.
+ */
+@Service
+public class ExternalShellFetcher implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(ExternalShellFetcher.class);
+
+    /**
+     * Provider to add the fetched shells to
+     */
+    private final AssetsProvider provider;
+
+    /**
+     * Shared client for all downloads
+     */
+    private final HttpClient client;
+
+    /**
+     * Timeout for the response headers and, separately, for reading the body
+     */
+    private final Duration readTimeout;
+
+    /**
+     * Maximum number of bytes of a fetched file
+     */
+    private final long maxBodySize;
+
+    /**
+     * Executor to read and deserialize the downloaded files on
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Scheduler for read timeouts and the cleanup of expired entries
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Fetched (or currently fetching) URLs
+     */
+    private final Cache<String, CompletableFuture<Fetched>> fetched;
+
+    /**
+     * Shells added from a URL and the temporary file they are provided from
+     */
+    private record Fetched(Collection<String> ids, Path file) {
+    }
+
+    @Autowired
+    public ExternalShellFetcher(AssetsProvider provider, ParsedArguments arguments) {
+        this(provider,
+                Duration.ofSeconds(arguments.getConnectTimeout()),
+                Duration.ofSeconds(arguments.getReadTimeout()),
+                arguments.getMaxFetchSize() * 1024L * 1024L,
+                Duration.ofMinutes(arguments.getFetchCacheTtl()),
+                arguments.getFetchCacheSize(),
+                arguments.isVirtualThreads());
+    }
+
+    /**
+     * Create a fetcher
+     * @param provider provider to add the fetched shells to
+     * @param connectTimeout timeout for connecting to the external server
+     * @param readTimeout timeout for the response headers and, separately, for reading the body
+     * @param maxBodySize maximum number of bytes of a fetched file
+     * @param ttl time to keep the shells of a fetched URL
+     * @param maximumSize maximum number of URLs whose shells are kept
+     */
+    public ExternalShellFetcher(AssetsProvider provider, Duration connectTimeout, Duration readTimeout, long maxBodySize, Duration ttl, long maximumSize) {
+        this(provider, connectTimeout, readTimeout, maxBodySize, ttl, maximumSize, false);
+    }
+
+    /**
+     * Create a fetcher
+     * @see ExternalShellFetcher#ExternalShellFetcher(AssetsProvider, Duration, Duration, long, Duration, long)
+     * @param virtualThreads whether to download and deserialize every file on its own virtual thread instead of a
+     *                       pool of platform threads
+     */
+    public ExternalShellFetcher(AssetsProvider provider, Duration connectTimeout, Duration readTimeout, long maxBodySize, Duration ttl, long maximumSize, boolean virtualThreads) {
+        this.provider = provider;
+        this.readTimeout = readTimeout;
+        this.maxBodySize = maxBodySize;
+        this.executor = ThreadFactories.newExecutor("external-fetch", Runtime.getRuntime().availableProcessors(), virtualThreads);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("external-fetch-scheduler").setDaemon(true).build());
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.ALWAYS)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.fetched = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .removalListener((RemovalNotification<String, CompletableFuture<Fetched>> notification) -> {
+                    // The shells of a replaced entry are added again by the entry replacing it
+                    if (notification.getCause() != RemovalCause.REPLACED) {
+                        notification.getValue().thenAccept(this::remove);
+                    }
+                })
+                .build();
+        // Expired entries are otherwise only removed when the cache is used
+        long cleanupInterval = Math.max(1, Math.min(ttl.toSeconds(), 60));
+        scheduler.scheduleWithFixedDelay(fetched::cleanUp, cleanupInterval, cleanupInterval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Fetch the shells of an environment from a URL, or take them from the cache if they were fetched recently
+     * @param url URL of the .aas- or .aasx-file
+     * @return IDs of the shells contained in the file; completes exceptionally with an ErrorResponseException
+     *         if the file cannot be fetched or parsed
+     */
+    public CompletableFuture<Collection<String>> fetch(@NotNull String url) {
+        CompletableFuture<Fetched> future = get(url);
+        if (future.isCompletedExceptionally()) {
+            // A failed fetch is not cached, try again
+            fetched.asMap().remove(url, future);
+            future = get(url);
+        }
+        return future.thenApply(Fetched::ids);
+    }
+
+    private CompletableFuture<Fetched> get(String url) {
+        try {
+            return fetched.get(url, () -> start(url));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            return CompletableFuture.failedFuture(e.getCause());
+        }
+    }
+
+    /**
+     * Start fetching a URL
+     * @param url URL to fetch
+     * @return future of the fetched shells, removed from the cache if it fails
+     */
+    private CompletableFuture<Fetched> start(String url) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder().uri(URI.create(url)).timeout(readTimeout).build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new ErrorResponseException(HttpStatus.UNPROCESSABLE_ENTITY));
+        }
+        logger.info("Fetching external shells from " + url);
+        Timer.Sample sample = Timer.start();
+        CompletableFuture<Fetched> future = client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .exceptionally(e -> {
+                    throw translate(e);
+                })
+                .thenApplyAsync(response -> add(url, response), executor);
+        future.whenComplete((result, e) -> {
+            sample.stop(Metrics.timer("aas.external.fetch",
+                    "outcome", e == null ? "success" : "failure",
+                    "status", Integer.toString(e == null ? HttpStatus.OK.value() : statusOf(e))));
+            if (e != null) {
+                fetched.asMap().remove(url, future);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Download a file and add its shells to the provider
+     * @param url fetched URL
+     * @param response response of the external server
+     * @return the added shells
+     */
+    private Fetched add(String url, HttpResponse<InputStream> response) {
+        Path file = null;
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new ErrorResponseException(HttpStatus.NO_CONTENT);
+            }
+            if (response.headers().firstValueAsLong("Content-Length").orElse(-1) > maxBodySize) {
+                throw new ErrorResponseException(HttpStatus.PAYLOAD_TOO_LARGE);
+            }
+            file = Files.createTempFile("external", ".tmp");
+            download(body, file);
+            // The shells are read from the downloaded file, no stream is needed
+            Collection<String> ids = provider.addAssets(null, AssetsProvider.AssetType.AUTO, file.toFile(), true);
+            if (ids.isEmpty()) {
+                throw new ErrorResponseException(HttpStatus.NOT_FOUND);
+            }
+            logger.info(String.format("Fetched %d external shells from %s", ids.size(), url));
+            return new Fetched(ids, file);
+        } catch (DeserializationException | InvalidFormatException e) {
+            deleteQuietly(file);
+            throw new ErrorResponseException(HttpStatus.UNPROCESSABLE_ENTITY, e);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw translate(e);
+        } catch (RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Copy a response body into a file, enforcing the maximum size and the read timeout
+     * @param body body to copy
+     * @param file file to copy it to
+     */
+    private void download(InputStream body, Path file) throws IOException {
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+            timedOut.set(true);
+            try {
+                body.close();
+            } catch (IOException e) {
+                logger.warn("Could not abort download: " + e.getMessage());
+            }
+        }, readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            long size = 0;
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                size += read;
+                if (size > maxBodySize) {
+                    throw new ErrorResponseException(HttpStatus.PAYLOAD_TOO_LARGE);
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            if (timedOut.get()) {
+                throw new HttpTimeoutException("Reading the response body timed out");
+            }
+            throw e;
+        } finally {
+            timeout.cancel(false);
+        }
+    }
+
+    /**
+     * Translate an error of a download into the response to give
+     */
+    private static RuntimeException translate(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return switch (e) {
+            case ErrorResponseException errorResponse -> errorResponse;
+            case SSLException ssl -> new ErrorResponseException(HttpStatus.UNPROCESSABLE_ENTITY, ssl);
+            case HttpTimeoutException timeout -> new ErrorResponseException(HttpStatus.GATEWAY_TIMEOUT, timeout);
+            case IOException io -> new ErrorResponseException(HttpStatus.BAD_GATEWAY, io);
+            case RuntimeException runtime -> runtime;
+            default -> new CompletionException(e);
+        };
+    }
+
+    /**
+     * Get hit and miss statistics of the fetched URLs
+     * @return statistics of the cache of fetched URLs
+     */
+    public CacheStats stats() {
+        return fetched.stats();
+    }
+
+    /**
+     * Get the status of the response to give for an error of a download
+     */
+    private static int statusOf(Throwable e) {
+        return translate(e) instanceof ErrorResponseException errorResponse
+                ? errorResponse.getStatusCode().value()
+                : HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+
+    /**
+     * Remove the shells of an evicted URL from the provider.
+     * Shells which were fetched again in the meantime (e.g. because the URL was evicted while it was downloaded) are
+     * provided from another file and kept.
+     */
+    private void remove(Fetched fetched) {
+        logger.info("Removing external shells " + fetched.ids());
+        provider.removeAssets(fetched.ids(), fetched.file().toFile());
+        deleteQuietly(fetched.file());
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn(String.format("Could not delete %s: %s", file, e.getMessage()));
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+}
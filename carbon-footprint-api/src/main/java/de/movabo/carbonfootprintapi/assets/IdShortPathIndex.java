@@ -0,0 +1,155 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.assets;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.eclipse.digitaltwin.aas4j.v3.model.Submodel;
+import org.eclipse.digitaltwin.aas4j.v3.model.SubmodelElement;
+import org.eclipse.digitaltwin.aas4j.v3.model.SubmodelElementCollection;
+import org.eclipse.digitaltwin.aas4j.v3.model.SubmodelElementList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Index of all elements of a submodel by their idShortPath (e.g. {@code collection.list[3].property}), so an
+ * element can be looked up with a single hash probe instead of walking the collections element by element.
+ * The keys are the canonical idShortPaths; other spellings of a path (e.g. {@code list[03]}) are normalized once
+ * and the normalized path is cached.
+ */
+public class IdShortPathIndex {
+    /**
+     * Split at every "." and "[<number>]", but keep the "[<number>]" in the array as own entry.
+     * e.g. "this.is[5]a.test => {"this", "is", "[5]", "a", "test"}
+     */
+    private static final Pattern PATH_SEPARATOR = Pattern.compile("(\\.|(?<=\\[[0-9]+\\])|(?=\\[[0-9]+\\]))");
+
+    /**
+     * Marker for idShortPaths which cannot be normalized (never a key of an index)
+     */
+    private static final String INVALID = "";
+
+    /**
+     * Canonical idShortPaths of requested idShortPaths
+     */
+    private static final Cache<String, String> normalizedPaths = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .build();
+
+    /**
+     * Elements by their canonical idShortPath
+     */
+    private final Map<String, SubmodelElement> elements;
+
+    private IdShortPathIndex(Map<String, SubmodelElement> elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Build the index of a submodel
+     * @param submodel submodel to index
+     * @return index of all (nested) elements of the submodel
+     */
+    public static IdShortPathIndex of(@NotNull Submodel submodel) {
+        HashMap<String, SubmodelElement> elements = new HashMap<>();
+        if (submodel.getSubmodelElements() != null) {
+            addCollection(elements, null, submodel.getSubmodelElements());
+        }
+        return new IdShortPathIndex(elements);
+    }
+
+    private static void addCollection(Map<String, SubmodelElement> elements, String prefix, List<SubmodelElement> children) {
+        for (SubmodelElement child : children) {
+            if (child == null || child.getIdShort() == null || child.getIdShort().isEmpty()) {
+                continue;
+            }
+            String path = prefix == null ? child.getIdShort() : prefix + "." + child.getIdShort();
+            // The first element with an idShort wins, as when searching the collection
+            if (elements.putIfAbsent(path, child) == null) {
+                addChildren(elements, path, child);
+            }
+        }
+    }
+
+    private static void addChildren(Map<String, SubmodelElement> elements, String path, SubmodelElement element) {
+        if (element instanceof SubmodelElementCollection collection && collection.getValue() != null) {
+            addCollection(elements, path, collection.getValue());
+        } else if (element instanceof SubmodelElementList list && list.getValue() != null) {
+            List<SubmodelElement> children = list.getValue();
+            for (int i = 0; i < children.size(); i++) {
+                String childPath = path + "[" + i + "]";
+                elements.put(childPath, children.get(i));
+                addChildren(elements, childPath, children.get(i));
+            }
+        }
+    }
+
+    /**
+     * Get an element by its idShortPath
+     * @param idShortPath path of the element
+     * @return the element or null if there is no element with this path
+     */
+    public SubmodelElement get(@NotNull String idShortPath) {
+        SubmodelElement element = elements.get(idShortPath);
+        if (element != null) {
+            return element;
+        }
+        String normalized = normalizedPaths.asMap().computeIfAbsent(idShortPath, IdShortPathIndex::normalize);
+        return normalized.equals(idShortPath) ? null : elements.get(normalized);
+    }
+
+    /**
+     * Get the number of indexed elements
+     * @return number of elements in the submodel (including nested ones)
+     */
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * Bring an idShortPath into the canonical form used as keys of the index
+     * @param idShortPath path to normalize
+     * @return canonical path or {@link #INVALID}
+     */
+    private static String normalize(String idShortPath) {
+        String[] names = PATH_SEPARATOR.split(idShortPath);
+        if (names.length == 0 || names[0].isEmpty() || names[0].startsWith("[")) {
+            return INVALID;
+        }
+        StringBuilder normalized = new StringBuilder(names[0]);
+        for (int i = 1; i < names.length; i++) {
+            String current = names[i];
+            if (current.isEmpty()) {
+                return INVALID;
+            }
+            if (current.startsWith("[")) {
+                try {
+                    normalized.append('[').append(Integer.parseInt(current.substring(1, current.length() - 1))).append(']');
+                } catch (NumberFormatException e) {
+                    return INVALID;
+                }
+            } else {
+                normalized.append('.').append(current);
+            }
+        }
+        return normalized.toString();
+    }
+}
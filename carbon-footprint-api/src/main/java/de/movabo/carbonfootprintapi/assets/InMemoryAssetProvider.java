@@ -16,7 +16,16 @@
 
 package de.movabo.carbonfootprintapi.assets;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
 import de.movabo.carbonfootprintapi.cli.ParsedArguments;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
 import org.apache.commons.lang3.tuple.Pair;
@@ -24,85 +33,204 @@ import org.apache.commons.lang3.tuple.Triple;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.eclipse.digitaltwin.aas4j.v3.dataformat.aasx.AASXDeserializer;
 import org.eclipse.digitaltwin.aas4j.v3.dataformat.core.DeserializationException;
-import org.eclipse.digitaltwin.aas4j.v3.dataformat.xml.XmlDeserializer;
-import org.eclipse.digitaltwin.aas4j.v3.dataformat.json.JsonDeserializer;
 import org.eclipse.digitaltwin.aas4j.v3.model.*;
 import org.eclipse.digitaltwin.aas4j.v3.model.impl.DefaultAssetAdministrationShellDescriptor;
-import org.eclipse.digitaltwin.aas4j.v3.model.impl.DefaultEnvironment;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 /**
  * Preload and provide assets (.aas- and .aasx-files) from the hard drive
  * This provider handles submodels as not globally unique (even though they should be!)
+ * <p>
+ * The provider is thread safe: reads never lock, writers of the same assets are serialized by striped locks and
+ * the submodels of an asset are always published before its shell, so a visible shell always has its submodels.
  */
 @Service
 public class InMemoryAssetProvider implements AssetsProvider {
     private static final Logger logger = LogManager.getLogger(InMemoryAssetProvider.class);
+
+    /**
+     * Time from opening an attachment of an .aasx-file until it was read (and closed)
+     */
+    private static final Timer ATTACHMENT_READS = Metrics.timer("aas.attachment.read");
+
+    /**
+     * Bytes read from attachments of .aasx-files
+     */
+    private static final DistributionSummary ATTACHMENT_BYTES = DistributionSummary.builder("aas.attachment.bytes")
+            .baseUnit("bytes")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * Time to resolve a submodel element by its idShortPath (including loading the submodel)
+     */
+    private static final Timer ELEMENT_RESOLUTIONS = Metrics.timer("aas.submodel.element.resolve");
     /**
      * Mapping of globalAssetIds to its corresponding AssetAdministrationShell and its source file
      * e.g. {@code assetShells.get(globalAssetId)}
      */
-    private final HashMap<String, Triple<AssetAdministrationShell, Boolean, File>> assetShells;
+    private final ConcurrentHashMap<String, Triple<AssetAdministrationShell, Boolean, File>> assetShells;
     /**
      * Mapping of GlobalAssetIds to mappings of contained SubmodelIds to the submodel
      * e.g. {@code assetSubmodels.get(globalAssetId).get(submodelId)}
+     * The inner maps are immutable and replaced as a whole (copy on write).
+     */
+    private final ConcurrentHashMap<String, Map<String, Submodel>> assetSubmodels;
+
+    /**
+     * Mapping of GlobalAssetIds to the IDs of their lazily loaded submodels
+     * (which are provided from the source file of the asset via lazyEnvironments)
+     */
+    private final ConcurrentHashMap<String, Set<String>> lazySubmodelIds;
+
+    /**
+     * Mapping of semantic IDs to the (global) asset IDs and the IDs of their submodels with this semantic ID
+     * e.g. {@code semanticIdIndex.get(semanticId).get(globalAssetId)}
+     * The sets of submodel IDs are immutable and replaced as a whole (copy on write).
+     */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Set<String>>> semanticIdIndex;
+
+    /**
+     * Descriptors of all shells which are not hidden, sorted by the shell IDs
+     */
+    private final ConcurrentSkipListMap<String, AssetAdministrationShellDescriptor> descriptors;
+
+    /**
+     * Mapping of the IDs of all shells which are not hidden to their idShort, sorted by the shell IDs
+     */
+    private final ConcurrentSkipListMap<String, String> publicAssets;
+
+    /**
+     * Number of changes of the public assets (and their descriptors), to detect outdated snapshots
+     */
+    private final AtomicLong publicChanges;
+
+    /**
+     * Immutable snapshot of the public assets, rebuilt on the first read after a change
+     */
+    private volatile Snapshot<Map<String, String>> publicAssetsSnapshot;
+
+    /**
+     * Immutable snapshot of the descriptors, rebuilt on the first read after a change
+     */
+    private volatile Snapshot<List<AssetAdministrationShellDescriptor>> descriptorsSnapshot;
+
+    /**
+     * Immutable copy of a collection at a specific number of changes
      */
-    private final HashMap<String, HashMap<String, Submodel>> assetSubmodels;
+    private record Snapshot<T>(long version, T value) {
+    }
+
+    /**
+     * Cache of the submodels of lazily loaded files
+     */
+    private final EnvironmentCache lazyEnvironments;
+
+    /**
+     * Opened .aasx-files to read attachments from
+     */
+    private final ZipFileCache zipFiles;
 
     /**
      * Mappings of an assets ID to its idShort
      * (short ids may not be unique across different shells, so a reverse mapping is not feasible)
      */
-    private final HashMap<String, String> idToIdShort;
+    private final ConcurrentHashMap<String, String> idToIdShort;
+
+    /**
+     * idShortPath indexes of the submodels (weakly keyed by the identity of the submodel)
+     */
+    private final LoadingCache<Submodel, IdShortPathIndex> idShortPathIndexes;
+
+    /**
+     * Store of the compact representation of the submodels, null if the submodels are kept as aas4j objects
+     */
+    private final CompactSubmodelStore compactSubmodels;
+
+    /**
+     * Pool of the repeated strings (semantic IDs, idShorts, ...) of all added shells and submodels
+     */
+    private final StringPool stringPool;
+
+    /**
+     * Locks for writers, striped by (global) asset ID
+     */
+    private final Striped<Lock> writeLocks;
 
     /**
      * Create an empty asset provider
      */
     public InMemoryAssetProvider() {
-        assetShells = new HashMap<>();
-        assetSubmodels = new HashMap<>();
-        idToIdShort = new HashMap<>();
+        this(ParsedArguments.DEFAULT_LAZY_CACHE_SIZE, ParsedArguments.DEFAULT_ZIP_CACHE_SIZE);
+    }
+
+    /**
+     * Create an empty asset provider
+     * @param lazyCacheSize Maximum number of lazily loaded files whose submodels are kept in memory
+     * @param zipCacheSize Maximum number of .aasx-files to keep open for reading attachments
+     */
+    public InMemoryAssetProvider(int lazyCacheSize, int zipCacheSize) {
+        this(lazyCacheSize, zipCacheSize, null);
+    }
+
+    /**
+     * Create an empty asset provider
+     * @param lazyCacheSize Maximum number of lazily loaded files whose submodels are kept in memory
+     * @param zipCacheSize Maximum number of .aasx-files to keep open for reading attachments
+     * @param compactSubmodels Store to keep the submodels in their compact representation, null to keep them as
+     *                         aas4j objects
+     */
+    public InMemoryAssetProvider(int lazyCacheSize, int zipCacheSize, CompactSubmodelStore compactSubmodels) {
+        assetShells = new ConcurrentHashMap<>();
+        assetSubmodels = new ConcurrentHashMap<>();
+        lazySubmodelIds = new ConcurrentHashMap<>();
+        semanticIdIndex = new ConcurrentHashMap<>();
+        descriptors = new ConcurrentSkipListMap<>();
+        publicAssets = new ConcurrentSkipListMap<>();
+        publicChanges = new AtomicLong();
+        lazyEnvironments = new EnvironmentCache(lazyCacheSize);
+        zipFiles = new ZipFileCache(zipCacheSize);
+        idToIdShort = new ConcurrentHashMap<>();
+        idShortPathIndexes = CacheBuilder.newBuilder()
+                .weakKeys()
+                .build(CacheLoader.from(IdShortPathIndex::of));
+        writeLocks = Striped.lock(64);
+        this.compactSubmodels = compactSubmodels;
+        stringPool = new StringPool();
     }
 
     /**
      * Load assets from the arguments ({@code arguments.getAasFiles()} and {@code arguments.getAasxFiles})
+     * The files are deserialized in parallel ({@code arguments.getLoadParallelism()} threads)
+     * and only their shells are kept in memory if {@code arguments.isLazy()}.
+     * Unchanged files are not deserialized at all if an index directory is given ({@code arguments.getIndexDirectory()}).
      * @param arguments Parse cli arguments containing the aas(x) files to load
-     * @see InMemoryAssetProvider#addAssets(File, AssetType)
+     * @see ParallelAssetLoader
      */
     @Autowired
     public InMemoryAssetProvider(ParsedArguments arguments) throws IOException, InvalidFormatException, DeserializationException {
-        this();
-        for (File aas: arguments.getAasFiles()) {
-            logger.info("Loading " + aas.getAbsolutePath());
-            try {
-                addAssetAdministrationShell(aas);
-            } catch (Exception e) {
-                logger.error(String.format("An error occurred when loading an aas file %s, stack trace:", aas.getAbsolutePath()), e);
-            }
-            addAssetAdministrationShell(aas);
-        }
-        for (File aasx: arguments.getAasxFiles()) {
-            logger.info("Loading " + aasx.getAbsolutePath());
-            try {
-                addAssets(aasx, InMemoryAssetProvider.AssetType.AASX);
-            } catch (Exception e) {
-                logger.error(String.format("An error occurred when loading an aasx file %s, stack trace:", aasx.getAbsolutePath()), e);
-            }
-        }
+        this(arguments.getLazyCacheSize(), arguments.getZipCacheSize(),
+                arguments.isCompact() ? new CompactSubmodelStore(arguments.getCompactCacheSize()) : null);
+        AssetIndex index = arguments.getIndexDirectory() == null ? null : AssetIndex.load(arguments.getIndexDirectory());
+        new ParallelAssetLoader(this, arguments.getLoadParallelism(), arguments.isLazy(), index, arguments.isVirtualThreads())
+                .load(arguments.getAasFiles(), arguments.getAasxFiles());
     }
 
     @Override
@@ -124,20 +252,172 @@ public class InMemoryAssetProvider implements AssetsProvider {
      * @param shell Shell to add to the provider
      */
     public void addAssetAdministrationShell(AssetAdministrationShell shell, File file, boolean hide) {
-        String globalId = shell.getAssetInformation().getGlobalAssetId();
+        String globalId = ensureGlobalAssetId(shell);
         String id = shell.getId();
-        String idShort = shell.getIdShort();
+        Iterable<Lock> locks = lockAssets(List.of(shell));
+        try {
+            logger.info("Adding asset with ID " + id + " / global ID " + globalId);
+            assert !assetShells.containsKey(id);
+            assert !assetShells.containsKey(globalId);
+            ImmutableTriple<AssetAdministrationShell, Boolean, File> shellData = new ImmutableTriple<>(shell, hide, file);
+            assetShells.put(globalId, shellData);
+            assetShells.put(id, shellData);
+            this.idToIdShort.put(id, shell.getIdShort());
+            if (!hide) {
+                descriptors.put(id, createDescriptor(shell));
+                publicAssets.put(id, shell.getIdShort());
+                publicChanges.incrementAndGet();
+            }
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    @Override
+    public void removeAssets(Collection<String> ids) {
+        removeAssets(ids, null);
+    }
+
+    /**
+     * A shell is only removed if it is still registered with the given file. The check and the removal are atomic,
+     * so a shell which is added again concurrently is either removed before or kept.
+     * @param file file the shells were added from, null to remove them regardless of their file
+     * @see AssetsProvider#removeAssets(Collection, File)
+     */
+    @Override
+    public void removeAssets(Collection<String> ids, File file) {
+        for (String id: ids) {
+            var shellData = assetShells.get(id);
+            if (shellData == null || file != null && !file.equals(shellData.getRight())) {
+                continue;
+            }
+            AssetAdministrationShell shell = shellData.getLeft();
+            Iterable<Lock> locks = lockAssets(List.of(shell));
+            try {
+                removeAssetAdministrationShell(shell, shellData);
+            } finally {
+                locks.forEach(Lock::unlock);
+            }
+        }
+    }
+
+    /**
+     * Remove a shell and its submodels, the write locks of the shell have to be held by the caller.
+     * The shell is unpublished before its submodels, so a visible shell always has its submodels.
+     * @param shell shell to remove
+     * @param shellData registered data of the shell, nothing is removed if the shell was replaced in the meantime
+     */
+    private void removeAssetAdministrationShell(AssetAdministrationShell shell, Triple<AssetAdministrationShell, Boolean, File> shellData) {
+        String id = shell.getId();
+        String globalId = shell.getAssetInformation().getGlobalAssetId();
+        if (!removeShellData(id, shellData)) {
+            return;
+        }
+        logger.info("Removing asset with ID " + id + " / global ID " + globalId);
+        removeShellData(globalId, shellData);
+        idToIdShort.remove(id);
+        if (!shellData.getMiddle()) {
+            descriptors.remove(id);
+            publicAssets.remove(id);
+            publicChanges.incrementAndGet();
+        }
+        for (String key: Set.of(id, globalId)) {
+            unbindSubmodels(key);
+        }
+        File file = shellData.getRight();
+        if (file != null) {
+            zipFiles.invalidate(file);
+            if (assetShells.values().stream().anyMatch(other -> file.equals(other.getRight()))) {
+                lazyEnvironments.invalidate(file);
+            } else {
+                // The last shell of the file was removed
+                lazyEnvironments.unregister(file);
+            }
+        }
+    }
+
+    /**
+     * Remove the registered data of a shell by one of its keys, but only if it is still the same instance.
+     * Shells (and therefore their registered data) are equal by value, so an equal shell which was added again in the
+     * meantime must not be removed instead.
+     * @param key ID or globalAssetId of the shell
+     * @param shellData registered data of the shell to remove
+     * @return whether the data was removed
+     */
+    private boolean removeShellData(String key, Triple<AssetAdministrationShell, Boolean, File> shellData) {
+        boolean[] removed = {false};
+        assetShells.computeIfPresent(key, (k, registered) -> {
+            if (registered != shellData) {
+                return registered;
+            }
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Remove the submodels (and lazy submodel IDs) bound to a (global) asset ID and their semantic IDs from the index,
+     * the write lock of the key has to be held by the caller.
+     * @param key ID or globalAssetId of the asset
+     */
+    private void unbindSubmodels(String key) {
+        assetSubmodels.remove(key);
+        lazySubmodelIds.remove(key);
+        for (Map<String, Set<String>> assets: semanticIdIndex.values()) {
+            assets.remove(key);
+        }
+    }
+
+    /**
+     * Set an autogenerated globalAssetId for a shell if it does not have one
+     * @param shell Shell to check
+     * @return the (possibly generated) globalAssetId of the shell
+     */
+    private static String ensureGlobalAssetId(AssetAdministrationShell shell) {
+        String globalId = shell.getAssetInformation().getGlobalAssetId();
         if (globalId == null) {
-            globalId = "autogenerated_" + id + "_" + idShort + "_" + UUID.randomUUID();
+            globalId = "autogenerated_" + shell.getId() + "_" + shell.getIdShort() + "_" + UUID.randomUUID();
             shell.getAssetInformation().setGlobalAssetId(globalId);
         }
-        this.idToIdShort.put(id, idShort);
-        logger.info("Adding asset with ID " + id + " / global ID " + globalId);
-        assert !assetShells.containsKey(id);
-        assert !assetShells.containsKey(globalId);
-        ImmutableTriple<AssetAdministrationShell, Boolean, File> shellData = new ImmutableTriple<>(shell, hide, file);
-        assetShells.put(globalId, shellData);
-        assetShells.put(id, shellData);
+        return globalId;
+    }
+
+    /**
+     * Acquire the write locks of shells (by their IDs and globalAssetIds)
+     * The stripes are locked in a consistent order, so concurrent writers cannot deadlock.
+     * @param shells Shells to lock
+     * @return acquired locks which have to be unlocked by the caller
+     */
+    private Iterable<Lock> lockAssets(Collection<AssetAdministrationShell> shells) {
+        Set<String> keys = new HashSet<>();
+        for (AssetAdministrationShell shell: shells) {
+            keys.add(shell.getId());
+            keys.add(ensureGlobalAssetId(shell));
+        }
+        Iterable<Lock> locks = writeLocks.bulkGet(keys);
+        locks.forEach(Lock::lock);
+        return locks;
+    }
+
+    /**
+     * Check that none of the shells is provided yet, the write locks of the shells have to be held by the caller
+     * @param shells shells which are about to be added
+     * @throws IllegalStateException a shell (by ID or globalAssetId) is already provided or contained multiple times
+     */
+    private void checkNotProvided(Collection<AssetAdministrationShell> shells) {
+        Set<String> keys = new HashSet<>();
+        for (AssetAdministrationShell shell: shells) {
+            for (String key: Set.of(shell.getId(), ensureGlobalAssetId(shell))) {
+                var registered = assetShells.get(key);
+                if (registered != null) {
+                    throw new IllegalStateException(String.format("The shell %s is already provided by %s.", key, registered.getRight()));
+                }
+                if (!keys.add(key)) {
+                    throw new IllegalStateException(String.format("The shell %s is contained multiple times.", key));
+                }
+            }
+        }
     }
 
     /**
@@ -154,61 +434,47 @@ public class InMemoryAssetProvider implements AssetsProvider {
         return true;
     }
 
+    /**
+     * The asset is spooled to a temporary file if no file is given and then read from the file (as stream), so it is
+     * never held in memory as a whole.
+     * @see AssetsProvider#addAssets(InputStream, AssetType, File, boolean)
+     */
     public Collection<String> addAssets(InputStream asset, AssetType type, File file, boolean hide) throws DeserializationException, IOException, InvalidFormatException {
-        Environment env = null;
-        String suffix = ".aasx";
-        byte[] bytes = asset.readAllBytes();
-        if (type == AssetType.JSON || type == AssetType.AUTO) {
-            try {
-                logger.info("Parsing as JSON");
-                env = new JsonDeserializer().read(new ByteArrayInputStream(bytes), DefaultEnvironment.class);  // TODO: untested, does it work?
-                suffix = ".json";
-            } catch (DeserializationException e) {
-                if (type == AssetType.JSON) {
-                    throw e;
-                } else {
-                    logger.info("Could not auto-parse AAS as JSON", e);
-                }
-            }
-        }
-        if (env == null && (type == AssetType.XML || type == AssetType.AUTO)) {
-            try {
-                logger.info("Parsing as XML");
-                env = new XmlDeserializer().read(new ByteArrayInputStream(bytes));
-                suffix = ".xml";
-            } catch (DeserializationException e) {
-                if (type == AssetType.XML) {
-                    throw e;
-                } else {
-                    logger.info("Could not auto-parse AAS as XML", e);
-                }
-            }
-        }
-        if (env == null && (type == AssetType.AASX || type == AssetType.AUTO)) {
-            try {
-                logger.info("Parsing as AASX");
-                env = new AASXDeserializer(new ByteArrayInputStream(bytes)).read();
-            } catch (Exception e) {
-                if (type == AssetType.AASX) {
-                    throw e;
-                } else {
-                    logger.info("Could not auto-parse AAS as AASX", e);
-                    throw new DeserializationException("InputStream could not be deserialized to a valid asset.");
-                }
-            }
-        }
-        if (file == null) {
-            Path path = Files.createTempFile("aas", suffix);
-            Files.write(path, bytes);
+        Timer.Sample sample = Timer.start();
+        boolean spooled = file == null;
+        if (spooled) {
+            Path path = Files.createTempFile("aas", ".tmp");
+            Files.copy(asset, path, StandardCopyOption.REPLACE_EXISTING);
             file = path.toFile();
         }
-        if (env == null) {
-            throw new DeserializationException("Error deserializing environment");
+        Environment env;
+        try {
+            env = readEnvironment(file, type);
+        } catch (IOException | DeserializationException | InvalidFormatException | RuntimeException e) {
+            if (spooled) {
+                Files.deleteIfExists(file.toPath());
+            }
+            throw e;
         }
         addEnvironment(env, file, hide);
+        sample.stop(Metrics.timer("aas.ingest.file", "source", hide ? "external" : "upload"));
         return env.getAssetAdministrationShells().stream().map(Identifiable::getId).collect(Collectors.toSet());
     }
 
+    /**
+     * Deserialize the environment of an .aas or .aasx-file without adding it to the provider
+     * @param file .aas or .aasx-file to deserialize
+     * @param type as which type this files should be handled, AssetType.AUTO for auto-detection.
+     * @return the deserialized environment
+     * @throws IOException Errors while loading the .aas or .aasx file
+     * @throws DeserializationException Error while parsing the .aas file (in case of .aasx, the contained .aas file)
+     * @throws InvalidFormatException Error when parsing the .aas-file as .xml
+     * @see EnvironmentReader
+     */
+    public static Environment readEnvironment(File file, AssetType type) throws IOException, InvalidFormatException, DeserializationException {
+        return EnvironmentReader.read(file, type);
+    }
+
     /**
      * Add the assets from an .aas or .aasx-file to the provider
      * @param file .aas or .aasx-files to provide the assets from
@@ -219,16 +485,215 @@ public class InMemoryAssetProvider implements AssetsProvider {
      */
     public void addAssets(File file, AssetType type) throws IOException, InvalidFormatException, DeserializationException {
         logger.info("Adding file " + file.getAbsolutePath());
-        addAssets(new FileInputStream(file), type, file);
+        addEnvironment(readEnvironment(file, type), file, false);
     }
 
     /**
      * Add all shells contained in an aas-environment.
+     * Repeated strings of the environment are replaced by pooled instances (see {@link StringPool}), except for the
+     * strings of compact submodels, which are deduplicated by deflating them.
+     * The shells and submodels are added as a unit: if a shell is already provided or a submodel INSTANCE is
+     * contained multiple times, nothing is added.
      * @param env AAS-environment to add the shells from
+     * @throws IllegalStateException a shell is already provided or a submodel INSTANCE is contained multiple times
      */
     public void addEnvironment(Environment env, File file, boolean hide) {
-        this.addAssetAdministrationShells(env.getAssetAdministrationShells(), file, hide);
-        this.addSubmodels(env.getAssetAdministrationShells(), env.getSubmodels());
+        stringPool.internShells(env.getAssetAdministrationShells());
+        if (compactSubmodels == null) {
+            stringPool.internSubmodels(env.getSubmodels());
+        }
+        Iterable<Lock> locks = lockAssets(env.getAssetAdministrationShells());
+        try {
+            checkNotProvided(env.getAssetAdministrationShells());
+            // Publish the submodels first, so a shell is never visible without its submodels
+            try {
+                this.addSubmodels(env.getAssetAdministrationShells(), env.getSubmodels());
+            } catch (RuntimeException e) {
+                // None of the shells was added, do not leave their submodels behind
+                for (AssetAdministrationShell shell: env.getAssetAdministrationShells()) {
+                    for (String key: Set.of(shell.getId(), shell.getAssetInformation().getGlobalAssetId())) {
+                        unbindSubmodels(key);
+                    }
+                }
+                throw e;
+            }
+            this.addAssetAdministrationShells(env.getAssetAdministrationShells(), file, hide);
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Add all shells contained in an aas-environment, but only keep the IDs of its submodels in memory.
+     * The submodels are deserialized again from the file when they are requested (and evicted when unused).
+     * @param env AAS-environment to add the shells from
+     * @param file file the environment was deserialized from
+     * @param type as which type the file has to be deserialized
+     */
+    public void addEnvironmentLazily(Environment env, File file, AssetType type) {
+        addEnvironmentLazily(env.getAssetAdministrationShells(), AasUtil.getSubmodelSemanticIds(env.getSubmodels()), file, type);
+    }
+
+    /**
+     * Add shells of a file whose submodels are deserialized from the file when they are requested
+     * @param shells shells of the file
+     * @param submodelSemanticIds semantic IDs of all submodels contained in the file by the IDs of the submodels
+     * @param file file the shells were deserialized from
+     * @param type as which type the file has to be deserialized
+     * @throws IllegalStateException a shell is already provided (nothing is added)
+     * @see InMemoryAssetProvider#addEnvironmentLazily(Environment, File, AssetType)
+     */
+    public void addEnvironmentLazily(List<AssetAdministrationShell> shells, Map<String, Set<String>> submodelSemanticIds, File file, AssetType type) {
+        stringPool.internShells(shells);
+        Set<String> ids = Set.copyOf(submodelSemanticIds.keySet());
+        Iterable<Lock> locks = lockAssets(shells);
+        try {
+            checkNotProvided(shells);
+            lazyEnvironments.register(file, type);
+            for (AssetAdministrationShell shell: shells) {
+                String globalAssetId = ensureGlobalAssetId(shell);
+                lazySubmodelIds.put(shell.getId(), ids);
+                lazySubmodelIds.put(globalAssetId, ids);
+                submodelSemanticIds.forEach((submodelId, semanticIds) -> {
+                    indexSemanticIds(shell.getId(), submodelId, semanticIds);
+                    indexSemanticIds(globalAssetId, submodelId, semanticIds);
+                });
+            }
+            this.addAssetAdministrationShells(shells, file, false);
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Replace the shells of a file by the shells of a new version of the file, e.g. after it was changed on disk.
+     * Shells which are not contained in the new version anymore are removed, new shells are added.
+     * Readers are never blocked: the submodel maps, shells and idShorts are replaced key by key (submodels first),
+     * so a reader sees either the old or the new version of a shell. The old submodels and semantic ID index entries
+     * are only dropped after the new ones were put, so a replaced shell never appears without submodels. Opened attachment handles of the file are
+     * closed as soon as their last reader released them.
+     * @param file file which changed
+     * @param env new content of the file, null if the file was deleted
+     * @param type as which type the file has to be deserialized (when its submodels are loaded lazily)
+     * @param lazy whether to only keep the shells in memory and load the submodels on demand
+     * @throws IllegalStateException a shell of the new version is already provided by another file or the
+     *                               new version contains a submodel INSTANCE multiple times (nothing is replaced)
+     */
+    public void replaceFile(@NotNull File file, Environment env, AssetType type, boolean lazy) {
+        List<Triple<AssetAdministrationShell, Boolean, File>> previous = assetShells.values().stream()
+                .filter(shellData -> file.equals(shellData.getRight()))
+                .distinct()
+                .toList();
+        List<AssetAdministrationShell> shells = env == null ? List.of() : env.getAssetAdministrationShells();
+        List<Submodel> submodels = env == null ? List.of() : env.getSubmodels();
+        stringPool.internShells(shells);
+        if (!lazy && compactSubmodels == null) {
+            stringPool.internSubmodels(submodels);
+        }
+        Map<String, Set<String>> submodelSemanticIds = AasUtil.getSubmodelSemanticIds(submodels);
+        Map<String, Set<String>> submodelIdsBySemanticId = new HashMap<>();
+        submodelSemanticIds.forEach((submodelId, semanticIds) -> semanticIds.forEach(semanticId ->
+                submodelIdsBySemanticId.computeIfAbsent(semanticId, k -> new HashSet<>()).add(submodelId)));
+        Map<String, Submodel> submodelsById = lazy ? Map.of() : toSubmodelMap(submodels);
+        Set<String> lazyIds = lazy ? Set.copyOf(submodelSemanticIds.keySet()) : Set.of();
+
+        List<AssetAdministrationShell> affected = new ArrayList<>(shells);
+        previous.forEach(shellData -> affected.add(shellData.getLeft()));
+        Iterable<Lock> locks = lockAssets(affected);
+        try {
+            Set<String> keys = new HashSet<>();
+            for (AssetAdministrationShell shell: shells) {
+                for (String key: List.of(shell.getId(), shell.getAssetInformation().getGlobalAssetId())) {
+                    var registered = assetShells.get(key);
+                    if (registered != null && !file.equals(registered.getRight())) {
+                        throw new IllegalStateException(String.format("The shell %s of %s is already provided by %s.",
+                                key, file.getAbsolutePath(), registered.getRight()));
+                    }
+                    keys.add(key);
+                }
+            }
+            logger.info(String.format("Replacing %d shells of %s by %d shells", previous.size(), file.getAbsolutePath(), shells.size()));
+            zipFiles.invalidate(file);
+            if (lazy && !shells.isEmpty()) {
+                lazyEnvironments.invalidate(file);
+                lazyEnvironments.register(file, type);
+            } else {
+                lazyEnvironments.unregister(file);
+            }
+            for (AssetAdministrationShell shell: shells) {
+                String id = shell.getId();
+                for (String key: Set.of(id, shell.getAssetInformation().getGlobalAssetId())) {
+                    // The new submodels are bound before the old ones are dropped, so the key is never without submodels
+                    if (lazy) {
+                        lazySubmodelIds.put(key, lazyIds);
+                        assetSubmodels.remove(key);
+                    } else {
+                        assetSubmodels.put(key, submodelsById);
+                        lazySubmodelIds.remove(key);
+                    }
+                    rebindSemanticIds(key, submodelIdsBySemanticId);
+                }
+                ImmutableTriple<AssetAdministrationShell, Boolean, File> shellData = new ImmutableTriple<>(shell, false, file);
+                assetShells.put(shell.getAssetInformation().getGlobalAssetId(), shellData);
+                assetShells.put(id, shellData);
+                idToIdShort.put(id, shell.getIdShort());
+                descriptors.put(id, createDescriptor(shell));
+                publicAssets.put(id, shell.getIdShort());
+                publicChanges.incrementAndGet();
+            }
+            for (var shellData: previous) {
+                AssetAdministrationShell shell = shellData.getLeft();
+                if (!keys.contains(shell.getId())) {
+                    removeAssetAdministrationShell(shell, shellData);
+                    continue;
+                }
+                // The shell was replaced, but its globalAssetId may have changed (if it is still provided by the new
+                // version, it is already bound to its new shell and submodels)
+                String globalId = shell.getAssetInformation().getGlobalAssetId();
+                if (!keys.contains(globalId) && removeShellData(globalId, shellData)) {
+                    unbindSubmodels(globalId);
+                }
+            }
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Get the files the shells were loaded from
+     * @return source files of all shells (which have one)
+     */
+    public Set<File> getFiles() {
+        return assetShells.values().stream()
+                .map(Triple::getRight)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Map submodels by their IDs (and build their idShortPath indexes or compact them) with the same rules as
+     * {@link InMemoryAssetProvider#addSubmodel(String, Submodel)}: duplicate templates are skipped, duplicate
+     * instances are rejected.
+     * @param submodels submodels to map
+     * @return immutable map of the submodels by their IDs
+     */
+    private Map<String, Submodel> toSubmodelMap(List<Submodel> submodels) {
+        HashMap<String, Submodel> byId = new HashMap<>();
+        for (Submodel submodel: submodels) {
+            String id = submodel.getId();
+            if (byId.containsKey(id)) {
+                if (submodel.getKind() == ModellingKind.TEMPLATE) {
+                    logger.warn(String.format("The submodel TEMPLATE with ID %s is contained multiple times. Skipping and assuming that the templates are the same.", id));
+                    continue;
+                }
+                throw new IllegalStateException(String.format("The submodel INSTANCE with ID %s is contained multiple times.", id));
+            }
+            if (compactSubmodels == null) {
+                idShortPathIndexes.getUnchecked(submodel);
+            }
+            byId.put(id, submodel);
+        }
+        return compactSubmodels == null ? Collections.unmodifiableMap(byId) : compactSubmodels.compact(byId);
     }
 
     /**
@@ -239,36 +704,91 @@ public class InMemoryAssetProvider implements AssetsProvider {
         addAssets(file, AssetType.AUTO);
     }
 
+    /**
+     * Derived from the identity of the source file (path, size and modification time) of the asset
+     * @see AssetsProvider#getVersion(String)
+     */
+    @Override
+    public String getVersion(@NotNull String globalAssetId) {
+        var shellData = this.assetShells.get(globalAssetId);
+        if (shellData == null || shellData.getRight() == null) {
+            return null;
+        }
+        File file = shellData.getRight();
+        return Hashing.murmur3_128().newHasher()
+                .putString(file.getAbsolutePath(), StandardCharsets.UTF_8)
+                .putLong(file.length())
+                .putLong(file.lastModified())
+                .hash()
+                .toString();
+    }
+
+    @Override
+    public long getLastModified(@NotNull String globalAssetId) {
+        var shellData = this.assetShells.get(globalAssetId);
+        if (shellData == null || shellData.getRight() == null) {
+            return -1;
+        }
+        long lastModified = shellData.getRight().lastModified();
+        return lastModified == 0 ? -1 : lastModified;
+    }
+
+    /**
+     * Returns the same immutable snapshot until a public asset is added
+     * @see AssetsProvider#availableAssetAdministrationShellIds()
+     */
     @Override
     public Map<String, String> availableAssetAdministrationShellIds() {
-        return this.idToIdShort.entrySet().stream().filter(e -> !this.assetShells.get(e.getKey()).getMiddle()).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        Snapshot<Map<String, String>> snapshot = publicAssetsSnapshot;
+        long version = publicChanges.get();
+        if (snapshot == null || snapshot.version() != version) {
+            snapshot = new Snapshot<>(version, Collections.unmodifiableMap(new LinkedHashMap<>(publicAssets)));
+            publicAssetsSnapshot = snapshot;
+        }
+        return snapshot.value();
     }
 
+    /**
+     * Returns the same immutable snapshot until a public asset is added
+     * @see AssetsProvider#getAssetAdministrationShellDescriptors()
+     */
     @Override
     public Iterable<AssetAdministrationShellDescriptor> getAssetAdministrationShellDescriptors() {
-        Set<AssetAdministrationShellDescriptor> descriptors = new HashSet<>();
-        for (var shellData: this.assetShells.values()) {
-            if (shellData.getMiddle()) {
-                // Shell is hidden!
-                continue;
-            }
-            AssetAdministrationShell shell = shellData.getLeft();
-            DefaultAssetAdministrationShellDescriptor descriptor = new DefaultAssetAdministrationShellDescriptor();
+        Snapshot<List<AssetAdministrationShellDescriptor>> snapshot = descriptorsSnapshot;
+        long version = publicChanges.get();
+        if (snapshot == null || snapshot.version() != version) {
+            snapshot = new Snapshot<>(version, List.copyOf(descriptors.values()));
+            descriptorsSnapshot = snapshot;
+        }
+        return snapshot.value();
+    }
 
-            descriptor.setAdministration(shell.getAdministration());
-            descriptor.setDescription(shell.getDescription());
-            descriptor.setIdShort(shell.getIdShort());
-            descriptor.setId(shell.getId());
-            descriptor.setDisplayName(shell.getDisplayName());
+    @Override
+    public List<AssetAdministrationShellDescriptor> getAssetAdministrationShellDescriptors(String after, int limit) {
+        var page = after == null ? descriptors : descriptors.tailMap(after, false);
+        return page.values().stream().limit(limit).toList();
+    }
 
-            AssetInformation shellInfo = shell.getAssetInformation();
-            descriptor.setAssetKind(shellInfo.getAssetKind());
-            descriptor.setAssetType(shellInfo.getAssetType());
-            descriptor.setGlobalAssetId(shellInfo.getGlobalAssetId());
-            descriptor.setSpecificAssetIds(shellInfo.getSpecificAssetIds());
-            descriptors.add(descriptor);
-        }
-        return descriptors;
+    /**
+     * Create the descriptor of a shell
+     * @param shell shell to describe
+     * @return descriptor of the shell
+     */
+    private static AssetAdministrationShellDescriptor createDescriptor(AssetAdministrationShell shell) {
+        DefaultAssetAdministrationShellDescriptor descriptor = new DefaultAssetAdministrationShellDescriptor();
+
+        descriptor.setAdministration(shell.getAdministration());
+        descriptor.setDescription(shell.getDescription());
+        descriptor.setIdShort(shell.getIdShort());
+        descriptor.setId(shell.getId());
+        descriptor.setDisplayName(shell.getDisplayName());
+
+        AssetInformation shellInfo = shell.getAssetInformation();
+        descriptor.setAssetKind(shellInfo.getAssetKind());
+        descriptor.setAssetType(shellInfo.getAssetType());
+        descriptor.setGlobalAssetId(shellInfo.getGlobalAssetId());
+        descriptor.setSpecificAssetIds(shellInfo.getSpecificAssetIds());
+        return descriptor;
     }
 
     @Override
@@ -282,69 +802,49 @@ public class InMemoryAssetProvider implements AssetsProvider {
 
     @Override
     public ImmutablePair<byte[], String> getSubmodelElementAttachment(@NotNull String globalAssetId, @NotNull String submodelId, @NotNull String idShortPath) {
+        Attachment attachment = this.getSubmodelElementAttachmentStream(globalAssetId, submodelId, idShortPath);
+        if (attachment == null) {
+            return null;
+        }
+        try {
+            return new ImmutablePair<>(attachment.readAllBytes(), attachment.contentType());
+        } catch (IOException e) {
+            logger.error("An error occurred while reading the attachment: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public Attachment getSubmodelElementAttachmentStream(@NotNull String globalAssetId, @NotNull String submodelId, @NotNull String idShortPath) {
         SubmodelElement element = this.getSubmodelElement(globalAssetId, submodelId, idShortPath);
-        byte[] data;
-        String contentType;
         switch (element) {
             case org.eclipse.digitaltwin.aas4j.v3.model.File file -> {
-                data = this.getAttachment(globalAssetId, file.getValue());
-                contentType = file.getContentType();
+                return this.getAttachmentStream(globalAssetId, file.getValue(), file.getContentType());
             }
             case Resource resource -> {
-                data = this.getAttachment(globalAssetId, resource.getPath());
-                contentType = resource.getContentType();
+                return this.getAttachmentStream(globalAssetId, resource.getPath(), resource.getContentType());
             }
             case Blob blob -> {
-                data = blob.getValue();
-                contentType = blob.getContentType();
+                return blob.getValue() == null ? null : Attachment.of(blob.getValue(), blob.getContentType());
             }
             case null, default -> {
                 return null;
             }
         }
-        return new ImmutablePair<>(data, contentType);
     }
 
     @Override
     public SubmodelElement getSubmodelElement(@NotNull String globalAssetId, @NotNull String submodelId, @NotNull String idShortPath) {
-        Submodel submodel = this.assetSubmodels.get(globalAssetId).get(submodelId);
-        // Split at every "." and "[<number>]", but keep the "[<number>]" in the array as own entry.
-        // e.g. "this.is[5]a.test => {"this", "is", "[5]", "a", "test"}
-        String[] names = idShortPath.split("(\\.|(?<=\\[[0-9]+\\])|(?=\\[[0-9]+\\]))");
-        if (names.length == 0) {
-            return null;
-        }
-        SubmodelElement element = submodel.getSubmodelElements().stream().filter(e -> e.getIdShort().equals(names[0])).findFirst().orElse(null);
-
-        for (int i = 1; i < names.length; i++) {
-            String current = names[i];
-            if (element == null) {
-                return null;
-            }
-            if (current.isEmpty()) {
-                logger.warn(String.format("idShortPath %s has empty element, returning null", idShortPath));
-                return null;
-            }
-            if (current.startsWith("[")) {
-                if (element instanceof SubmodelElementList) {
-                    int index = Integer.parseInt(current.substring(1, current.length()-1));
-                    try {
-                        element = ((SubmodelElementList) element).getValue().get(index);
-                    } catch (IndexOutOfBoundsException e) {
-                        return null;
-                    }
-                } else {
-                    logger.warn(String.format("Expected %s (from %s) to be an SubmodelElementList, not %s, returning null", current, idShortPath, element.getClass()));
-                    return null;
-                }
-            } else if (element instanceof SubmodelElementCollection) {
-                element = ((SubmodelElementCollection) element).getValue().stream().filter(e -> e.getIdShort().equals(current)).findFirst().orElse(null);
-            } else {
-                logger.warn(String.format("Expected %s (from %s) to be an SubmodelElementCollection, not %s, returning null", current, idShortPath, element.getClass()));
+        Timer.Sample sample = Timer.start();
+        try {
+            Submodel submodel = this.getSubmodel(globalAssetId, submodelId);
+            if (submodel == null) {
                 return null;
             }
+            return idShortPathIndexes.getUnchecked(submodel).get(idShortPath);
+        } finally {
+            sample.stop(ELEMENT_RESOLUTIONS);
         }
-        return element;
     }
 
     //public byte[] getAttachment(@NotNull String globalAssetId, @NotNull String idShortPath) {
@@ -354,32 +854,117 @@ public class InMemoryAssetProvider implements AssetsProvider {
     //}
 
     public byte[] getAttachment(@NotNull String globalAssetId, @NotNull String path) {
-        File file = this.assetShells.get(globalAssetId).getRight();
+        Attachment attachment = this.getAttachmentStream(globalAssetId, path, null);
+        if (attachment == null) {
+            return null;
+        }
+        try {
+            return attachment.readAllBytes();
+        } catch (IOException e) {
+            logger.error("An error occurred while processing the zip file: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Get a file of the .aasx-file of an asset without loading it into memory
+     * @param globalAssetId ID of the asset whose file contains the attachment
+     * @param path path of the attachment inside the .aasx-file
+     * @param contentType content type of the attachment
+     * @return Streamable attachment, null if it does not exist
+     */
+    public Attachment getAttachmentStream(@NotNull String globalAssetId, @NotNull String path, String contentType) {
+        var shellData = this.assetShells.get(globalAssetId);
+        if (shellData == null || path == null) {
+            return null;
+        }
+        File file = shellData.getRight();
         if (!file.exists() || !file.isFile()) {
             logger.error("File does not exist or is not a valid file.");
             return null;
         }
+        String entryName = path.startsWith("/") ? path.substring(1) : path;
 
-        try (ZipFile zipFile = new ZipFile(file)) {
-            if (path.startsWith("/")) {
-                path = path.substring(1);
-            }
-            ZipEntry zipEntry = zipFile.getEntry(path);
-
+        try (ZipFileCache.Lease lease = zipFiles.open(file)) {
+            ZipEntry zipEntry = lease.zipFile().getEntry(entryName);
             if (zipEntry == null) {
                 logger.error("File not found in the zip archive.");
                 return null;
             }
-
-            try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
-                return inputStream.readAllBytes();
-            }
+            return new Attachment(contentType, zipEntry.getSize(), () -> openZipEntry(file, entryName));
         } catch (IOException e) {
             logger.error("An error occurred while processing the zip file: " + e.getMessage());
         }
         return null;
     }
 
+    /**
+     * Open a stream of an entry of a zip file, the zip file stays leased until the stream is closed
+     * @param file zip file
+     * @param entryName name of the entry inside the zip file
+     * @return stream of the entry
+     * @throws IOException zip file could not be opened or does not contain the entry (anymore)
+     */
+    private InputStream openZipEntry(File file, String entryName) throws IOException {
+        ZipFileCache.Lease lease = zipFiles.open(file);
+        try {
+            ZipFile zipFile = lease.zipFile();
+            ZipEntry zipEntry = zipFile.getEntry(entryName);
+            if (zipEntry == null) {
+                throw new FileNotFoundException(entryName + " not found in " + file.getAbsolutePath());
+            }
+            Timer.Sample sample = Timer.start();
+            return new FilterInputStream(zipFile.getInputStream(zipEntry)) {
+                private long bytesRead = 0;
+                private boolean closed = false;
+
+                @Override
+                public int read() throws IOException {
+                    int read = super.read();
+                    if (read != -1) {
+                        bytesRead++;
+                    }
+                    return read;
+                }
+
+                @Override
+                public int read(byte @NotNull [] b, int off, int len) throws IOException {
+                    int read = super.read(b, off, len);
+                    if (read > 0) {
+                        bytesRead += read;
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    try {
+                        super.close();
+                    } finally {
+                        lease.close();
+                        sample.stop(ATTACHMENT_READS);
+                        ATTACHMENT_BYTES.record(bytesRead);
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get hit and miss statistics of the opened .aasx-files
+     * @return statistics of the cache of opened .aasx-files
+     */
+    public CacheStats getZipFileCacheStats() {
+        return zipFiles.stats();
+    }
+
     public byte[] getAttachment(@NotNull String globalAssetId, @NotNull Resource resource) {
         return this.getAttachment(globalAssetId, resource.getPath());
     }
@@ -401,6 +986,19 @@ public class InMemoryAssetProvider implements AssetsProvider {
         return new ImmutablePair<>(thumbnail, thumbnailData.getContentType());
     }
 
+    @Override
+    public Attachment getThumbnailStream(@NotNull String globalAssetId) {
+        var shell = this.assetShells.get(globalAssetId);
+        if (shell == null) {
+            return null;
+        }
+        Resource thumbnailData = shell.getLeft().getAssetInformation().getDefaultThumbnail();
+        if (thumbnailData == null) {
+            return null;
+        }
+        return this.getAttachmentStream(globalAssetId, thumbnailData.getPath(), thumbnailData.getContentType());
+    }
+
     /**
      * Add submodels and bind them to specific assets
      * @param assets assets to bind the submodels to (i.e. which contain these submodels)
@@ -444,35 +1042,212 @@ public class InMemoryAssetProvider implements AssetsProvider {
      */
     public void addSubmodel(@NotNull String globalAssetId, @NotNull Submodel submodel) {
         String id = submodel.getId();
-        HashMap<String, Submodel> submodels = assetSubmodels.computeIfAbsent(globalAssetId, k -> new HashMap<>());
-        if (submodels.containsKey(id)) {
-            String assetId = this.getAssetAdministrationShell(globalAssetId).getId();
-            if (submodel.getKind() == ModellingKind.TEMPLATE) {
-                logger.warn("The submodel TEMPLATE with ID %s is already registered for asset %s (id=%s). Skipping and assuming that the registered template is the same.");
-                return;
-            } else {
-                throw new IllegalStateException(String.format("The submodel INSTANCE with ID %s is already registered for asset %s (id=%s).", id, globalAssetId, assetId));
+        assetSubmodels.compute(globalAssetId, (k, submodels) -> {
+            if (submodels == null) {
+                if (compactSubmodels != null) {
+                    return compactSubmodels.with(null, submodel);
+                }
+                idShortPathIndexes.getUnchecked(submodel);
+                return Map.of(id, submodel);
+            }
+            if (submodels.containsKey(id)) {
+                var shellData = this.assetShells.get(globalAssetId);
+                String assetId = shellData == null ? null : shellData.getLeft().getId();
+                if (submodel.getKind() == ModellingKind.TEMPLATE) {
+                    logger.warn(String.format("The submodel TEMPLATE with ID %s is already registered for asset %s (id=%s). Skipping and assuming that the registered template is the same.", id, globalAssetId, assetId));
+                    return submodels;
+                } else {
+                    throw new IllegalStateException(String.format("The submodel INSTANCE with ID %s is already registered for asset %s (id=%s).", id, globalAssetId, assetId));
+                }
+            }
+            if (compactSubmodels != null) {
+                return compactSubmodels.with(submodels, submodel);
             }
+            idShortPathIndexes.getUnchecked(submodel);
+            HashMap<String, Submodel> updated = new HashMap<>(submodels);
+            updated.put(id, submodel);
+            return Collections.unmodifiableMap(updated);
+        });
+        indexSemanticIds(globalAssetId, id, AasUtil.getSemanticIds(submodel));
+    }
+
+    /**
+     * Replace the semantic ID index entries of an asset, the write lock of the key has to be held by the caller.
+     * The new entries are put before the stale ones are removed, so semantic IDs contained in the old and the new
+     * version of the asset are always found.
+     * @param key ID or globalAssetId of the asset
+     * @param submodelIdsBySemanticId IDs of the new submodels of the asset by their semantic IDs
+     */
+    private void rebindSemanticIds(String key, Map<String, Set<String>> submodelIdsBySemanticId) {
+        submodelIdsBySemanticId.forEach((semanticId, submodelIds) ->
+                semanticIdIndex.computeIfAbsent(semanticId, k -> new ConcurrentHashMap<>()).put(key, Set.copyOf(submodelIds)));
+        semanticIdIndex.forEach((semanticId, assets) -> {
+            if (!submodelIdsBySemanticId.containsKey(semanticId)) {
+                assets.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Register a submodel of an asset in the semantic ID index
+     * @param globalAssetId (global) ID of the asset containing the submodel
+     * @param submodelId ID of the submodel
+     * @param semanticIds semantic IDs of the submodel
+     */
+    private void indexSemanticIds(String globalAssetId, String submodelId, Collection<String> semanticIds) {
+        for (String semanticId: semanticIds) {
+            semanticIdIndex.computeIfAbsent(semanticId, k -> new ConcurrentHashMap<>()).merge(globalAssetId, Set.of(submodelId), (ids, added) -> {
+                if (ids.contains(submodelId)) {
+                    return ids;
+                }
+                HashSet<String> updated = new HashSet<>(ids);
+                updated.add(submodelId);
+                return Collections.unmodifiableSet(updated);
+            });
         }
-        submodels.put(id, submodel);
+    }
+
+    /**
+     * Looks the submodels up in the semantic ID index instead of loading all submodels of the asset
+     * @see AssetsProvider#getSubmodelsBySemanticId(String, Collection)
+     */
+    @Override
+    public List<Submodel> getSubmodelsBySemanticId(@NotNull String globalAssetId, @NotNull Collection<String> semanticIds) {
+        Set<String> submodelIds = new LinkedHashSet<>();
+        for (String semanticId: semanticIds) {
+            Map<String, Set<String>> assets = semanticIdIndex.get(semanticId);
+            Set<String> ids = assets == null ? null : assets.get(globalAssetId);
+            if (ids != null) {
+                submodelIds.addAll(ids);
+            }
+        }
+        List<Submodel> submodels = new ArrayList<>(submodelIds.size());
+        for (String submodelId: submodelIds) {
+            Submodel submodel = getSubmodel(globalAssetId, submodelId);
+            if (submodel != null) {
+                submodels.add(submodel);
+            }
+        }
+        return submodels;
+    }
+
+    /**
+     * Get hit and miss statistics of the lazily loaded files
+     * @return statistics of the cache of the submodels of lazily loaded files
+     */
+    public CacheStats getLazyEnvironmentCacheStats() {
+        return lazyEnvironments.stats();
+    }
+
+    /**
+     * Get the number of files whose submodels are loaded on demand
+     * @return number of lazily loaded files which still provide shells
+     */
+    public int getLazyFileCount() {
+        return lazyEnvironments.registeredFiles();
+    }
+
+    /**
+     * Get hit and miss statistics of the materialized compact submodels
+     * @return statistics of the cache of materialized submodels, null if the submodels are not kept compact
+     */
+    public CacheStats getCompactSubmodelCacheStats() {
+        return compactSubmodels == null ? null : compactSubmodels.cacheStats();
+    }
+
+    /**
+     * Get the number of shells
+     * @return number of shells, including hidden ones
+     */
+    public int getShellCount() {
+        return idToIdShort.size();
+    }
+
+    /**
+     * Get the number of hidden shells (e.g. fetched external shells)
+     * @return number of shells which are not listed
+     */
+    public int getHiddenShellCount() {
+        return Math.max(0, idToIdShort.size() - publicAssets.size());
+    }
+
+    /**
+     * Get the number of submodels of all shells (a submodel contained in multiple shells is counted multiple times)
+     * @return number of submodels (including lazily loaded ones)
+     */
+    public long getSubmodelCount() {
+        long count = 0;
+        for (String id: idToIdShort.keySet()) {
+            count += availableSubmodelIds(id).size();
+        }
+        return count;
+    }
+
+    /**
+     * Get the statistics of the pool of repeated strings
+     * @return statistics of the string pool
+     */
+    public StringPool.Stats getStringPoolStats() {
+        return stringPool.stats();
+    }
+
+    /**
+     * Describe the memory usage of the provider: the used heap, the savings of the string pool and, if the submodels
+     * are kept in their compact representation, the size of the compact submodels compared to their JSON
+     * @return human-readable report
+     */
+    public String getMemoryReport() {
+        Runtime runtime = Runtime.getRuntime();
+        String report = String.format("Heap in use: %d MB of %d MB (%d shells)",
+                (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024), runtime.maxMemory() / (1024 * 1024), idToIdShort.size());
+        StringPool.Stats pool = stringPool.stats();
+        report += String.format(", string pool: %d of %d strings deduplicated (%d KB saved)",
+                pool.deduplicated(), pool.lookups(), pool.savedBytes() / 1024);
+        if (compactSubmodels == null) {
+            return report;
+        }
+        CompactSubmodelStore.Stats stats = compactSubmodels.stats(assetSubmodels.values());
+        return report + String.format(", compact submodels: %d submodels in %d KB (%d KB as JSON, %d materialized, hit rate %.2f)",
+                stats.submodels(), stats.compactBytes() / 1024, stats.jsonBytes() / 1024, stats.materialized(),
+                compactSubmodels.cacheStats().hitRate());
     }
 
     @Override
     public boolean hasSubmodel(@NotNull String globalAssetId, @NotNull String submodelId) {
-        HashMap<String, Submodel> assetSubmodels = this.assetSubmodels.get(globalAssetId);
-        if (assetSubmodels == null) {
-            return false;
+        Map<String, Submodel> assetSubmodels = this.assetSubmodels.get(globalAssetId);
+        if (assetSubmodels != null && assetSubmodels.containsKey(submodelId)) {
+            return true;
         }
-        return assetSubmodels.containsKey(submodelId);
+        Set<String> lazyIds = this.lazySubmodelIds.get(globalAssetId);
+        return lazyIds != null && lazyIds.contains(submodelId);
     }
 
     @Override
     public Submodel getSubmodel(@NotNull String globalAssetId, @NotNull String submodelId) {
-        return assetSubmodels.get(globalAssetId).get(submodelId);
+        Map<String, Submodel> assetSubmodels = this.assetSubmodels.get(globalAssetId);
+        if (assetSubmodels != null && assetSubmodels.containsKey(submodelId)) {
+            return assetSubmodels.get(submodelId);
+        }
+        Set<String> lazyIds = this.lazySubmodelIds.get(globalAssetId);
+        var shellData = this.assetShells.get(globalAssetId);
+        if (lazyIds == null || !lazyIds.contains(submodelId) || shellData == null) {
+            return null;
+        }
+        return lazyEnvironments.getSubmodel(shellData.getRight(), submodelId);
     }
 
     @Override
     public Set<String> availableSubmodelIds(@NotNull String globalAssetId) {
-        return assetSubmodels.get(globalAssetId).keySet();
+        Map<String, Submodel> assetSubmodels = this.assetSubmodels.get(globalAssetId);
+        Set<String> lazyIds = this.lazySubmodelIds.get(globalAssetId);
+        if (lazyIds == null) {
+            return assetSubmodels == null ? Set.of() : assetSubmodels.keySet();
+        }
+        if (assetSubmodels == null) {
+            return lazyIds;
+        }
+        Set<String> ids = new HashSet<>(assetSubmodels.keySet());
+        ids.addAll(lazyIds);
+        return ids;
     }
 }
@@ -0,0 +1,216 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.assets;
+
+import io.micrometer.core.instrument.Metrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.digitaltwin.aas4j.v3.model.Environment;
+import org.eclipse.digitaltwin.aas4j.v3.model.impl.DefaultEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load .aas- and .aasx-files into a provider by deserializing them on a bounded pool of worker threads.
+ * The deserialized environments are added to the provider in the order of the files, so the result is the same as
+ * when loading them one after another. At most twice as many files as there are worker threads are read ahead of the
+ * file which is added next, so files which are deserialized early do not pile up in memory.
+ * In lazy mode, every file is still fully deserialized once (there is no cheaper scan for the IDs), but only the
+ * shells and submodel IDs are kept (the workers already drop the submodels), see
+ * {@link InMemoryAssetProvider#addEnvironmentLazily}.
+ * If an {@link AssetIndex} is given (only in lazy mode), unchanged files are taken from the index instead of
+ * deserializing them.
+ */
+public class ParallelAssetLoader {
+    private static final Logger logger = LogManager.getLogger(ParallelAssetLoader.class);
+
+    /**
+     * Provider to add the loaded assets to
+     */
+    private final InMemoryAssetProvider provider;
+
+    /**
+     * Maximum number of files to deserialize at the same time
+     */
+    private final int parallelism;
+
+    /**
+     * Whether to add the environments lazily
+     */
+    private final boolean lazy;
+
+    /**
+     * Index to take unchanged files from and to update with changed ones, may be null
+     */
+    private final AssetIndex index;
+
+    /**
+     * Whether to deserialize the files on virtual threads (still at most parallelism at a time)
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * A file to load together with the type to load it as
+     */
+    private record AssetFile(File file, AssetsProvider.AssetType type) {
+    }
+
+    /**
+     * A deserialized environment (with only shells if taken from the index or loaded lazily), the semantic IDs of its submodels (by
+     * submodel ID) and how long it took to deserialize it
+     */
+    private record LoadedEnvironment(Environment environment, Map<String, Set<String>> submodelSemanticIds, boolean indexed, long nanos) {
+    }
+
+    public ParallelAssetLoader(InMemoryAssetProvider provider, int parallelism, boolean lazy, AssetIndex index) {
+        this(provider, parallelism, lazy, index, false);
+    }
+
+    /**
+     * Create a loader
+     * @param provider provider to add the loaded assets to
+     * @param parallelism maximum number of files to deserialize at the same time
+     * @param lazy whether to only add the shells and load the submodels on demand
+     * @param index index to take unchanged files from (only when loading lazily), may be null
+     * @param virtualThreads whether to deserialize the files on virtual threads
+     */
+    public ParallelAssetLoader(InMemoryAssetProvider provider, int parallelism, boolean lazy, AssetIndex index, boolean virtualThreads) {
+        if (index != null && !lazy) {
+            throw new IllegalArgumentException("An asset index can only be used when loading lazily.");
+        }
+        this.provider = provider;
+        this.parallelism = Math.max(1, parallelism);
+        this.lazy = lazy;
+        this.index = index;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Load .aas- and .aasx-files; errors are logged and do not stop the loading of the other files
+     * @param aasFiles .aas-files to load (type is auto-detected)
+     * @param aasxFiles .aasx-files to load
+     */
+    public void load(File[] aasFiles, File[] aasxFiles) {
+        List<AssetFile> files = new ArrayList<>();
+        for (File aas: aasFiles) {
+            files.add(new AssetFile(aas, AssetsProvider.AssetType.AUTO));
+        }
+        for (File aasx: aasxFiles) {
+            files.add(new AssetFile(aasx, AssetsProvider.AssetType.AASX));
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int threads = Math.min(parallelism, files.size());
+        logger.info(String.format("Loading %d files with %d threads", files.size(), threads));
+        // A fixed pool even for virtual threads: deserializing is CPU-bound, the pool bounds the parallelism
+        ExecutorService executor = Executors.newFixedThreadPool(threads, ThreadFactories.create("asset-loader", virtualThreads));
+        int loaded = 0;
+        // Number of files which are read ahead of the one to add next
+        int window = threads * 2;
+        try {
+            List<Future<LoadedEnvironment>> futures = new ArrayList<>(Collections.nCopies(files.size(), null));
+            for (int i = 0; i < Math.min(window, files.size()); i++) {
+                AssetFile file = files.get(i);
+                futures.set(i, executor.submit(() -> read(file)));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                File file = files.get(i).file();
+                try {
+                    Future<LoadedEnvironment> future = futures.get(i);
+                    futures.set(i, null);
+                    if (i + window < files.size()) {
+                        AssetFile next = files.get(i + window);
+                        futures.set(i + window, executor.submit(() -> read(next)));
+                    }
+                    LoadedEnvironment env = future.get();
+                    long addStart = System.nanoTime();
+                    if (lazy) {
+                        provider.addEnvironmentLazily(env.environment().getAssetAdministrationShells(), env.submodelSemanticIds(), file, files.get(i).type());
+                    } else {
+                        provider.addEnvironment(env.environment(), file, false);
+                    }
+                    Metrics.timer("aas.ingest.file", "source", env.indexed() ? "index" : "startup")
+                            .record(env.nanos() + System.nanoTime() - addStart, TimeUnit.NANOSECONDS);
+                    logger.info(String.format("Loaded %s (%s in %d ms, added in %d ms)",
+                            file.getAbsolutePath(), env.indexed() ? "taken from index" : "deserialized",
+                            env.nanos() / 1_000_000, (System.nanoTime() - addStart) / 1_000_000));
+                    loaded++;
+                } catch (ExecutionException e) {
+                    logger.error(String.format("An error occurred when loading the file %s, stack trace:", file.getAbsolutePath()), e.getCause());
+                } catch (RuntimeException e) {
+                    logger.error(String.format("An error occurred when adding the assets of file %s, stack trace:", file.getAbsolutePath()), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while loading files", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info(String.format("Loaded %d of %d files in %d ms", loaded, files.size(), (System.nanoTime() - start) / 1_000_000));
+        logger.info(provider.getMemoryReport());
+        if (index != null) {
+            try {
+                index.save(files.stream().map(AssetFile::file).toList());
+            } catch (IOException e) {
+                logger.error("Could not save the asset index, stack trace:", e);
+            }
+        }
+    }
+
+    /**
+     * Read a file, from the index if it is unchanged
+     * @param file file to read
+     * @return the environment of the file, without submodels when loading lazily
+     */
+    private LoadedEnvironment read(AssetFile file) throws Exception {
+        long start = System.nanoTime();
+        if (index != null) {
+            AssetIndex.Entry entry = index.getValid(file.file(), file.type());
+            if (entry != null) {
+                Environment shells = AssetIndex.getShells(entry);
+                return new LoadedEnvironment(shells, entry.getSubmodelSemanticIds(), true, System.nanoTime() - start);
+            }
+        }
+        Environment env = InMemoryAssetProvider.readEnvironment(file.file(), file.type());
+        if (index != null) {
+            index.put(file.file(), file.type(), env);
+        }
+        Map<String, Set<String>> submodelSemanticIds = AasUtil.getSubmodelSemanticIds(env.getSubmodels());
+        if (lazy) {
+            // The submodels are deserialized again on demand, do not keep them until the file is added
+            env = new DefaultEnvironment.Builder()
+                    .assetAdministrationShells(env.getAssetAdministrationShells())
+                    .build();
+        }
+        return new LoadedEnvironment(env, submodelSemanticIds, false, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,44 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.assets;
+
+/**
+ * Semantic IDs (IRIs and IRDIs) of the submodels and submodel elements the API has to understand
+ * (mirrors {@code semanticIds.ts} of the carbon-trace frontend)
+ */
+public final class SemanticIds {
+    public static final String HIERARCHY_STRUCTURE = "https://admin-shell.io/idta/HierarchicalStructures/1/0/Submodel";
+    public static final String HIERARCHY_ARCHE_TYPE = "https://admin-shell.io/idta/HierarchicalStructures/ArcheType/1/0";
+    public static final String HIERARCHY_ENTRY = "https://admin-shell.io/idta/HierarchicalStructures/EntryNode/1/0";
+    public static final String HIERARCHY_NODE = "https://admin-shell.io/idta/HierarchicalStructures/Node/1/0";
+    public static final String HIERARCHY_BULK_COUNT = "https://admin-shell.io/idta/HierarchicalStructures/BulkCount/1/0";
+
+    public static final String CARBON_FOOTPRINT_0_9 = "https://admin-shell.io/idta/CarbonFootprint/CarbonFootprint/0/9";
+    public static final String CARBON_FOOTPRINT_1_0 = "https://admin-shell.io/idta/CarbonFootprint/CarbonFootprint/1/0";
+
+    /**
+     * IRDI of the PCFCO2eq property of a ProductCarbonFootprint
+     */
+    public static final String PCF_CO2EQ = "0173-1#02-ABG855#001";
+    /**
+     * IRDI of the TCFCO2eq property of a TransportCarbonFootprint
+     */
+    public static final String TCF_CO2EQ = "0173-1#02-ABG860#001";
+
+    private SemanticIds() {
+    }
+}
@@ -0,0 +1,238 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+package de.movabo.carbonfootprintapi.assets;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.eclipse.digitaltwin.aas4j.v3.model.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool to deduplicate strings which repeat across many assets (semantic IDs and other key values of references,
+ * idShorts, languages and content types), so every distinct value is kept in memory only once.
+ * Values are weakly referenced: a value which is not used by any asset anymore is garbage collected.
+ * Enumerations like value types or key types are shared instances already and are left untouched.
+ */
+public class StringPool {
+    /**
+     * Estimated size of a string object and its array header (excluding the characters) in bytes
+     */
+    private static final int STRING_OVERHEAD = 40;
+
+    private final Interner<String> interner = Interners.newWeakInterner();
+
+    /**
+     * Number of interned strings
+     */
+    private final LongAdder lookups = new LongAdder();
+
+    /**
+     * Number of interned strings which were replaced by an already pooled instance
+     */
+    private final LongAdder deduplicated = new LongAdder();
+
+    /**
+     * Estimated number of bytes freed by replacing strings with pooled instances
+     */
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * Statistics of the pool
+     * @param lookups number of interned strings
+     * @param deduplicated number of interned strings which were replaced by an already pooled instance
+     * @param savedBytes estimated number of bytes freed by deduplication (assuming compact Latin-1 strings)
+     */
+    public record Stats(long lookups, long deduplicated, long savedBytes) {
+        /**
+         * @return share of the interned strings which were duplicates
+         */
+        public double deduplicationRate() {
+            return lookups == 0 ? 0 : (double) deduplicated / lookups;
+        }
+    }
+
+    /**
+     * Get the pooled instance of a string
+     * @param value string to intern
+     * @return an equal string from the pool (the string itself if it was not pooled yet), null if value is null
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        lookups.increment();
+        String pooled = interner.intern(value);
+        if (pooled != value) {
+            deduplicated.increment();
+            savedBytes.add(STRING_OVERHEAD + value.length());
+        }
+        return pooled;
+    }
+
+    /**
+     * Intern the repeated strings of shells
+     * @param shells shells to deduplicate in place
+     */
+    public void internShells(List<AssetAdministrationShell> shells) {
+        if (shells == null) {
+            return;
+        }
+        for (AssetAdministrationShell shell: shells) {
+            internReferable(shell);
+            intern(shell.getDerivedFrom());
+            internReferences(shell.getSubmodels());
+            AssetInformation assetInformation = shell.getAssetInformation();
+            if (assetInformation != null) {
+                assetInformation.setAssetType(intern(assetInformation.getAssetType()));
+                if (assetInformation.getDefaultThumbnail() != null) {
+                    Resource thumbnail = assetInformation.getDefaultThumbnail();
+                    thumbnail.setContentType(intern(thumbnail.getContentType()));
+                }
+                if (assetInformation.getSpecificAssetIds() != null) {
+                    for (SpecificAssetId specificAssetId: assetInformation.getSpecificAssetIds()) {
+                        specificAssetId.setName(intern(specificAssetId.getName()));
+                        internSemantics(specificAssetId);
+                        intern(specificAssetId.getExternalSubjectId());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Intern the repeated strings of submodels and all their elements
+     * @param submodels submodels to deduplicate in place
+     */
+    public void internSubmodels(List<Submodel> submodels) {
+        if (submodels == null) {
+            return;
+        }
+        for (Submodel submodel: submodels) {
+            internReferable(submodel);
+            internSemantics(submodel);
+            internQualifiers(submodel);
+            internElements(submodel.getSubmodelElements());
+        }
+    }
+
+    /**
+     * Get hit and savings statistics of the pool
+     * @return statistics of the pool
+     */
+    public Stats stats() {
+        return new Stats(lookups.sum(), deduplicated.sum(), savedBytes.sum());
+    }
+
+    private void internElements(List<? extends SubmodelElement> elements) {
+        if (elements == null) {
+            return;
+        }
+        for (SubmodelElement element: elements) {
+            internReferable(element);
+            internSemantics(element);
+            internQualifiers(element);
+            switch (element) {
+                case Property property -> intern(property.getValueId());
+                case MultiLanguageProperty property -> {
+                    internLangStrings(property.getValue());
+                    intern(property.getValueId());
+                }
+                case File file -> file.setContentType(intern(file.getContentType()));
+                case Blob blob -> blob.setContentType(intern(blob.getContentType()));
+                case ReferenceElement reference -> intern(reference.getValue());
+                case AnnotatedRelationshipElement relationship -> {
+                    intern(relationship.getFirst());
+                    intern(relationship.getSecond());
+                    internElements(relationship.getAnnotations());
+                }
+                case RelationshipElement relationship -> {
+                    intern(relationship.getFirst());
+                    intern(relationship.getSecond());
+                }
+                case Entity entity -> {
+                    entity.setGlobalAssetId(intern(entity.getGlobalAssetId()));
+                    internElements(entity.getStatements());
+                }
+                case SubmodelElementCollection collection -> internElements(collection.getValue());
+                case SubmodelElementList list -> {
+                    intern(list.getSemanticIdListElement());
+                    internElements(list.getValue());
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void internReferable(Referable referable) {
+        referable.setIdShort(intern(referable.getIdShort()));
+        referable.setCategory(intern(referable.getCategory()));
+        internLangStrings(referable.getDescription());
+        internLangStrings(referable.getDisplayName());
+    }
+
+    private void internSemantics(HasSemantics element) {
+        intern(element.getSemanticId());
+        internReferences(element.getSupplementalSemanticIds());
+    }
+
+    private void internQualifiers(Qualifiable element) {
+        if (element.getQualifiers() == null) {
+            return;
+        }
+        for (Qualifier qualifier: element.getQualifiers()) {
+            qualifier.setType(intern(qualifier.getType()));
+            internSemantics(qualifier);
+            intern(qualifier.getValueId());
+        }
+    }
+
+    private void internLangStrings(List<? extends AbstractLangString> langStrings) {
+        if (langStrings == null) {
+            return;
+        }
+        for (AbstractLangString langString: langStrings) {
+            langString.setLanguage(intern(langString.getLanguage()));
+        }
+    }
+
+    private void internReferences(List<Reference> references) {
+        if (references == null) {
+            return;
+        }
+        for (Reference reference: references) {
+            intern(reference);
+        }
+    }
+
+    /**
+     * Intern the key values of a reference (and of its referred semantic ID)
+     * @param reference reference to deduplicate in place, may be null
+     */
+    private void intern(Reference reference) {
+        if (reference == null) {
+            return;
+        }
+        if (reference.getKeys() != null) {
+            for (Key key: reference.getKeys()) {
+                key.setValue(intern(key.getValue()));
+            }
+        }
+        intern(reference.getReferredSemanticId());
+    }
+}
@@ -0,0 +1,58 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+package de.movabo.carbonfootprintapi.assets;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories and executors for the background work of the provider, either on platform or on virtual threads
+ * (see {@code --virtualThreads}).
+ */
+public final class ThreadFactories {
+    private ThreadFactories() {
+    }
+
+    /**
+     * Create a factory of named threads
+     * @param name prefix of the thread names (followed by a counter)
+     * @param virtual whether to create virtual threads instead of (daemon) platform threads
+     * @return thread factory
+     */
+    public static ThreadFactory create(String name, boolean virtual) {
+        if (virtual) {
+            return Thread.ofVirtual().name(name + "-", 0).factory();
+        }
+        return new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build();
+    }
+
+    /**
+     * Create an executor for blocking tasks
+     * @param name prefix of the thread names
+     * @param threads number of platform threads (ignored for virtual threads)
+     * @param virtual whether to run every task on its own virtual thread instead of a fixed pool of platform threads
+     * @return executor
+     */
+    public static ExecutorService newExecutor(String name, int threads, boolean virtual) {
+        if (virtual) {
+            return Executors.newThreadPerTaskExecutor(create(name, true));
+        }
+        return Executors.newFixedThreadPool(threads, create(name, false));
+    }
+}
@@ -0,0 +1,183 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.assets;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipFile;
+
+/**
+ * Bounded cache of opened zip files (i.e. .aasx-files), so the central directory of a file does not have to be read
+ * again for every attachment or thumbnail.
+ * Handles are reference counted: an evicted or outdated handle is closed as soon as the last reader released it.
+ */
+public class ZipFileCache {
+    private static final Logger logger = LogManager.getLogger(ZipFileCache.class);
+
+    /**
+     * Opened handles by their files
+     */
+    private final LoadingCache<File, Handle> handles;
+
+    /**
+     * Create a cache
+     * @param maximumSize maximum number of files to keep open
+     */
+    public ZipFileCache(long maximumSize) {
+        handles = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .removalListener((RemovalNotification<File, Handle> notification) -> notification.getValue().release())
+                .build(CacheLoader.from(Handle::new));
+    }
+
+    /**
+     * Opened zip file with the size and modification time of the file when it was opened
+     */
+    private static class Handle {
+        private final ZipFile zipFile;
+        private final long size;
+        private final long lastModified;
+        /**
+         * Number of references to this handle (the cache itself and every open lease)
+         */
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        Handle(File file) {
+            try {
+                size = file.length();
+                lastModified = file.lastModified();
+                zipFile = new ZipFile(file);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open " + file.getAbsolutePath(), e);
+            }
+        }
+
+        /**
+         * Check whether the file was changed since it was opened
+         */
+        boolean isOutdated(File file) {
+            return file.length() != size || file.lastModified() != lastModified;
+        }
+
+        /**
+         * Add a reference to the handle
+         * @return whether the reference was added, false if the handle is already closed
+         */
+        boolean retain() {
+            int current;
+            do {
+                current = references.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        /**
+         * Remove a reference from the handle and close it if it was the last one
+         */
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                try {
+                    zipFile.close();
+                } catch (IOException e) {
+                    logger.warn("Could not close zip file " + zipFile.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Lease of an opened zip file, which has to be closed after reading from the zip file
+     */
+    public static class Lease implements AutoCloseable {
+        private final Handle handle;
+        private boolean closed = false;
+
+        private Lease(Handle handle) {
+            this.handle = handle;
+        }
+
+        public ZipFile zipFile() {
+            return handle.zipFile;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                handle.release();
+            }
+        }
+    }
+
+    /**
+     * Open a zip file or reuse an already opened one
+     * @param file zip file to open
+     * @return lease of the opened zip file, has to be closed after use
+     * @throws IOException file could not be opened
+     */
+    public Lease open(@NotNull File file) throws IOException {
+        while (true) {
+            Handle handle;
+            try {
+                handle = handles.get(file);
+            } catch (ExecutionException | UncheckedExecutionException e) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+            if (handle.isOutdated(file)) {
+                logger.info("Zip file " + file.getAbsolutePath() + " changed, reopening it");
+                handles.asMap().remove(file, handle);
+                continue;
+            }
+            if (handle.retain()) {
+                return new Lease(handle);
+            }
+            // Handle was closed concurrently, open it again
+        }
+    }
+
+    /**
+     * Close the handle of a file (as soon as it is not used anymore)
+     * @param file file whose handle to close
+     */
+    public void invalidate(@NotNull File file) {
+        handles.invalidate(file);
+    }
+
+    /**
+     * Get hit and miss statistics of the cache
+     * @return statistics of the cache
+     */
+    public CacheStats stats() {
+        return handles.stats();
+    }
+}
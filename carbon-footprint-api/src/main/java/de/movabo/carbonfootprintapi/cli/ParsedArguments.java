@@ -38,6 +38,21 @@ import java.util.Arrays;
 @Service
 public class ParsedArguments {
     private static final Logger logger = LogManager.getLogger(ParsedArguments.class);
+
+    /**
+     * Default of the maximum number of lazily loaded files whose submodels are kept in memory
+     */
+    public static final int DEFAULT_LAZY_CACHE_SIZE = 64;
+
+    /**
+     * Default of the maximum number of .aasx-files to keep open for reading attachments
+     */
+    public static final int DEFAULT_ZIP_CACHE_SIZE = 256;
+
+    /**
+     * Default of the maximum number of materialized submodels to keep when using --compact
+     */
+    public static final int DEFAULT_COMPACT_CACHE_SIZE = 1024;
     /**
      * Options of the API server
      */
@@ -55,6 +70,108 @@ public class ParsedArguments {
     @Getter
     private File[] aasFiles = {};
 
+    /**
+     * Glob patterns of the aasx-files supplied by the cli
+     */
+    @Getter
+    private String[] aasxGlobs = {};
+
+    /**
+     * Glob patterns of the aas-files supplied by the cli
+     */
+    @Getter
+    private String[] aasGlobs = {};
+
+    /**
+     * Whether to watch the directories of the aas(x)-files and reload changed files
+     */
+    @Getter
+    private boolean watch = false;
+
+    /**
+     * Number of threads to deserialize the aas(x)-files with at startup
+     */
+    @Getter
+    private int loadParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Whether to keep only the shells of the aas(x)-files in memory and load their submodels on demand
+     */
+    @Getter
+    private boolean lazy = false;
+
+    /**
+     * Maximum number of lazily loaded files whose submodels are kept in memory
+     */
+    @Getter
+    private int lazyCacheSize = DEFAULT_LAZY_CACHE_SIZE;
+
+    /**
+     * Whether to keep the submodels in a compact representation (deflated JSON) and materialize them on demand
+     */
+    @Getter
+    private boolean compact = false;
+
+    /**
+     * Maximum number of materialized submodels to keep when using the compact representation
+     */
+    @Getter
+    private int compactCacheSize = DEFAULT_COMPACT_CACHE_SIZE;
+
+    /**
+     * Directory of the persistent asset index (only used with --lazy), null if no index should be used
+     */
+    @Getter
+    private File indexDirectory = null;
+
+    /**
+     * Maximum number of .aasx-files to keep open for reading attachments
+     */
+    @Getter
+    private int zipCacheSize = DEFAULT_ZIP_CACHE_SIZE;
+
+    /**
+     * Cache-Control header of shells, submodels and attachments
+     */
+    @Getter
+    private String cacheControl = "no-cache";
+
+    /**
+     * Maximum size of serialized shells and submodels to keep in memory (in megabytes)
+     */
+    @Getter
+    private int jsonCacheSize = 256;
+
+    /**
+     * Timeout for connecting to external servers (in seconds)
+     */
+    @Getter
+    private int connectTimeout = 10;
+
+    /**
+     * Timeout for the response of external servers (in seconds)
+     */
+    @Getter
+    private int readTimeout = 30;
+
+    /**
+     * Maximum size of fetched external shells (in megabytes)
+     */
+    @Getter
+    private int maxFetchSize = 256;
+
+    /**
+     * Time to keep fetched external shells (in minutes)
+     */
+    @Getter
+    private int fetchCacheTtl = 60;
+
+    /**
+     * Maximum number of URLs whose fetched external shells are kept
+     */
+    @Getter
+    private int fetchCacheSize = 100;
+
     /**
      * port to run the server on
      */
@@ -85,6 +202,12 @@ public class ParsedArguments {
     @Getter
     private boolean suppress404 = false;
 
+    /**
+     * Whether to handle requests and load assets on virtual threads instead of platform thread pools
+     */
+    @Getter
+    private boolean virtualThreads = false;
+
     /**
      * Last exception (to print a help-message if cli was used wrongly)
      */
@@ -141,6 +264,81 @@ public class ParsedArguments {
                 .hasArg()
                 .desc("Aasx-files to add to the lookup repository, can be used multiple times")
                 .build();
+        Option watch = Option.builder()
+                .longOpt("watch")
+                .hasArg(false)
+                .desc("Watch the directories of --aas and --aasx for new, changed and deleted files and reload them in the background")
+                .build();
+        Option loadParallelism = Option.builder()
+                .longOpt("loadParallelism")
+                .hasArg()
+                .desc("Number of threads to load the aas(x)-files with at startup, defaults to the number of available processors")
+                .build();
+        Option lazy = Option.builder()
+                .longOpt("lazy")
+                .hasArg(false)
+                .desc("Only keep the shells of the aas(x)-files in memory and load their submodels on demand")
+                .build();
+        Option lazyCacheSize = Option.builder()
+                .longOpt("lazyCacheSize")
+                .hasArg()
+                .desc("Maximum number of aas(x)-files whose submodels are kept in memory when using --lazy, defaults to " + DEFAULT_LAZY_CACHE_SIZE)
+                .build();
+        Option compact = Option.builder()
+                .longOpt("compact")
+                .hasArg(false)
+                .desc("Keep the submodels as compressed JSON in memory and only deserialize them when they are requested, cannot be combined with --lazy")
+                .build();
+        Option compactCacheSize = Option.builder()
+                .longOpt("compactCacheSize")
+                .hasArg()
+                .desc("Maximum number of deserialized submodels to keep when using --compact, defaults to " + DEFAULT_COMPACT_CACHE_SIZE)
+                .build();
+        Option indexDir = Option.builder()
+                .longOpt("indexDir")
+                .hasArg()
+                .desc("Directory to persist an index of the aas(x)-files in when using --lazy, so unchanged files do not have to be parsed on restart")
+                .build();
+        Option zipCacheSize = Option.builder()
+                .longOpt("zipCacheSize")
+                .hasArg()
+                .desc("Maximum number of aasx-files to keep open for reading attachments and thumbnails, defaults to " + DEFAULT_ZIP_CACHE_SIZE)
+                .build();
+        Option cacheControl = Option.builder()
+                .longOpt("cacheControl")
+                .hasArg()
+                .desc("Cache-Control header to send with shells, submodels and attachments (which are revalidated with ETags), defaults to no-cache")
+                .build();
+        Option jsonCacheSize = Option.builder()
+                .longOpt("jsonCacheSize")
+                .hasArg()
+                .desc("Maximum size of serialized shells and submodels (JSON) to keep in memory in megabytes, defaults to 256")
+                .build();
+        Option connectTimeout = Option.builder()
+                .longOpt("connectTimeout")
+                .hasArg()
+                .desc("Timeout in seconds for connecting to external servers when fetching external shells, defaults to 10")
+                .build();
+        Option readTimeout = Option.builder()
+                .longOpt("readTimeout")
+                .hasArg()
+                .desc("Timeout in seconds for the response of external servers when fetching external shells, defaults to 30")
+                .build();
+        Option maxFetchSize = Option.builder()
+                .longOpt("maxFetchSize")
+                .hasArg()
+                .desc("Maximum size of fetched external shells in megabytes, defaults to 256")
+                .build();
+        Option fetchCacheTtl = Option.builder()
+                .longOpt("fetchCacheTtl")
+                .hasArg()
+                .desc("Minutes to keep fetched external shells before they are removed (and fetched again when requested), defaults to 60")
+                .build();
+        Option fetchCacheSize = Option.builder()
+                .longOpt("fetchCacheSize")
+                .hasArg()
+                .desc("Maximum number of URLs whose fetched external shells are kept, defaults to 100")
+                .build();
         Option staticResources = Option.builder()
                 .longOpt("static")
                 .hasArg()
@@ -156,15 +354,36 @@ public class ParsedArguments {
                 .hasArg(false)
                 .desc("Suppress a 404 return value if notFoundFile is being served (useful for SPAs)")
                 .build();
+        Option virtualThreads = Option.builder()
+                .longOpt("virtualThreads")
+                .hasArg(false)
+                .desc("Handle requests and load or fetch assets on virtual threads instead of platform thread pools")
+                .build();
         options.addOption(help);
         options.addOption(port);
         options.addOption(cors);
         options.addOption(aas);
         options.addOption(aasx);
         options.addOption(checkReposNotEmpty);
+        options.addOption(watch);
+        options.addOption(loadParallelism);
+        options.addOption(lazy);
+        options.addOption(lazyCacheSize);
+        options.addOption(compact);
+        options.addOption(compactCacheSize);
+        options.addOption(indexDir);
+        options.addOption(zipCacheSize);
+        options.addOption(cacheControl);
+        options.addOption(jsonCacheSize);
+        options.addOption(connectTimeout);
+        options.addOption(readTimeout);
+        options.addOption(maxFetchSize);
+        options.addOption(fetchCacheTtl);
+        options.addOption(fetchCacheSize);
         options.addOption(staticResources);
         options.addOption(notFoundResource);
         options.addOption(suppress404);
+        options.addOption(virtualThreads);
         parse(null);
     }
 
@@ -185,13 +404,102 @@ public class ParsedArguments {
                 this.printHelp(0);
             }
             if (cmd.hasOption("aas")) {
-                aasFiles = getFiles(cmd.getOptionValues("aas"), cmd.hasOption("checkReposNotEmpty"));
+                aasGlobs = cmd.getOptionValues("aas");
+                aasFiles = getFiles(aasGlobs, cmd.hasOption("checkReposNotEmpty"));
                 logger.info("AAS-files to load: " + Arrays.toString(aasFiles));
             }
             if (cmd.hasOption("aasx")) {
-                aasxFiles = getFiles(cmd.getOptionValues("aasx"), cmd.hasOption("checkReposNotEmpty"));
+                aasxGlobs = cmd.getOptionValues("aasx");
+                aasxFiles = getFiles(aasxGlobs, cmd.hasOption("checkReposNotEmpty"));
                 logger.info("AASX-files to load: " + Arrays.toString(aasxFiles));
             }
+            if (cmd.hasOption("watch")) {
+                watch = true;
+            }
+            if (cmd.hasOption("loadParallelism")) {
+                loadParallelism = Integer.parseInt(cmd.getOptionValue("loadParallelism"));
+                if (loadParallelism < 1) {
+                    throw new ParseException("--loadParallelism must be at least 1.");
+                }
+            }
+            if (cmd.hasOption("lazy")) {
+                lazy = true;
+            }
+            if (cmd.hasOption("lazyCacheSize")) {
+                if (!lazy) {
+                    throw new ParseException("--lazyCacheSize requires --lazy being set.");
+                }
+                lazyCacheSize = Integer.parseInt(cmd.getOptionValue("lazyCacheSize"));
+                if (lazyCacheSize < 1) {
+                    throw new ParseException("--lazyCacheSize must be at least 1.");
+                }
+            }
+            if (cmd.hasOption("compact")) {
+                if (lazy) {
+                    throw new ParseException("--compact cannot be combined with --lazy.");
+                }
+                compact = true;
+            }
+            if (cmd.hasOption("compactCacheSize")) {
+                if (!compact) {
+                    throw new ParseException("--compactCacheSize requires --compact being set.");
+                }
+                compactCacheSize = Integer.parseInt(cmd.getOptionValue("compactCacheSize"));
+                if (compactCacheSize < 1) {
+                    throw new ParseException("--compactCacheSize must be at least 1.");
+                }
+            }
+            if (cmd.hasOption("indexDir")) {
+                if (!lazy) {
+                    throw new ParseException("--indexDir requires --lazy being set.");
+                }
+                indexDirectory = new File(cmd.getOptionValue("indexDir"));
+            }
+            if (cmd.hasOption("zipCacheSize")) {
+                zipCacheSize = Integer.parseInt(cmd.getOptionValue("zipCacheSize"));
+                if (zipCacheSize < 1) {
+                    throw new ParseException("--zipCacheSize must be at least 1.");
+                }
+            }
+            if (cmd.hasOption("cacheControl")) {
+                cacheControl = cmd.getOptionValue("cacheControl");
+            }
+            if (cmd.hasOption("jsonCacheSize")) {
+                jsonCacheSize = Integer.parseInt(cmd.getOptionValue("jsonCacheSize"));
+                if (jsonCacheSize < 0) {
+                    throw new ParseException("--jsonCacheSize must not be negative.");
+                }
+            }
+            if (cmd.hasOption("connectTimeout")) {
+                connectTimeout = Integer.parseInt(cmd.getOptionValue("connectTimeout"));
+                if (connectTimeout < 1) {
+                    throw new ParseException("--connectTimeout must be at least 1.");
+                }
+            }
+            if (cmd.hasOption("readTimeout")) {
+                readTimeout = Integer.parseInt(cmd.getOptionValue("readTimeout"));
+                if (readTimeout < 1) {
+                    throw new ParseException("--readTimeout must be at least 1.");
+                }
+            }
+            if (cmd.hasOption("maxFetchSize")) {
+                maxFetchSize = Integer.parseInt(cmd.getOptionValue("maxFetchSize"));
+                if (maxFetchSize < 1) {
+                    throw new ParseException("--maxFetchSize must be at least 1.");
+                }
+            }
+            if (cmd.hasOption("fetchCacheTtl")) {
+                fetchCacheTtl = Integer.parseInt(cmd.getOptionValue("fetchCacheTtl"));
+                if (fetchCacheTtl < 1) {
+                    throw new ParseException("--fetchCacheTtl must be at least 1.");
+                }
+            }
+            if (cmd.hasOption("fetchCacheSize")) {
+                fetchCacheSize = Integer.parseInt(cmd.getOptionValue("fetchCacheSize"));
+                if (fetchCacheSize < 1) {
+                    throw new ParseException("--fetchCacheSize must be at least 1.");
+                }
+            }
             if (cmd.hasOption("port")) {
                 port = Integer.parseInt(cmd.getOptionValue("port"));
             }
@@ -213,6 +521,9 @@ public class ParsedArguments {
                 }
                 suppress404 = true;
             }
+            if (cmd.hasOption("virtualThreads")) {
+                virtualThreads = true;
+            }
         } catch (ParseException e) {
             lastException = e;
             throw e;
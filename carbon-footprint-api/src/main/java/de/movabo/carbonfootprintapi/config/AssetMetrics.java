@@ -0,0 +1,105 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+package de.movabo.carbonfootprintapi.config;
+
+import com.google.common.cache.CacheStats;
+import de.movabo.carbonfootprintapi.assets.ExternalShellFetcher;
+import de.movabo.carbonfootprintapi.assets.InMemoryAssetProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Gauges of the loaded assets and statistics of the caches, exposed together with the timers of the provider
+ * ({@code aas.*}) and the request metrics of Spring ({@code http.server.requests}) on the Prometheus endpoint
+ * ({@code /actuator/prometheus}).
+ */
+@Component
+public class AssetMetrics implements MeterBinder {
+    private final InMemoryAssetProvider provider;
+    private final ExternalShellFetcher fetcher;
+    private final CachingJsonHttpMessageConverter jsonConverter;
+
+    public AssetMetrics(InMemoryAssetProvider provider, ExternalShellFetcher fetcher, CachingJsonHttpMessageConverter jsonConverter) {
+        this.provider = provider;
+        this.fetcher = fetcher;
+        this.jsonConverter = jsonConverter;
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        Gauge.builder("aas.shells", provider, p -> p.getShellCount() - p.getHiddenShellCount())
+                .tag("visibility", "public")
+                .description("Number of listed shells")
+                .register(registry);
+        Gauge.builder("aas.shells", provider, InMemoryAssetProvider::getHiddenShellCount)
+                .tag("visibility", "hidden")
+                .description("Number of hidden shells (e.g. fetched external shells)")
+                .register(registry);
+        Gauge.builder("aas.submodels", provider, InMemoryAssetProvider::getSubmodelCount)
+                .description("Number of submodels of all shells")
+                .register(registry);
+        Gauge.builder("aas.heap.per.shell", provider, AssetMetrics::heapPerShell)
+                .baseUnit("bytes")
+                .description("Used heap divided by the number of shells (a rough estimate of the memory per asset)")
+                .register(registry);
+        Gauge.builder("aas.string.pool.saved", provider, p -> p.getStringPoolStats().savedBytes())
+                .baseUnit("bytes")
+                .description("Estimated memory saved by deduplicating repeated strings")
+                .register(registry);
+
+        bindCache(registry, "zip-files", provider, InMemoryAssetProvider::getZipFileCacheStats);
+        bindCache(registry, "lazy-environments", provider, InMemoryAssetProvider::getLazyEnvironmentCacheStats);
+        bindCache(registry, "json", jsonConverter, CachingJsonHttpMessageConverter::stats);
+        bindCache(registry, "external-shells", fetcher, ExternalShellFetcher::stats);
+        if (provider.getCompactSubmodelCacheStats() != null) {
+            bindCache(registry, "compact-submodels", provider, InMemoryAssetProvider::getCompactSubmodelCacheStats);
+        }
+    }
+
+    private static double heapPerShell(InMemoryAssetProvider provider) {
+        int shells = provider.getShellCount();
+        if (shells == 0) {
+            return 0;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return (double) (runtime.totalMemory() - runtime.freeMemory()) / shells;
+    }
+
+    /**
+     * Register the hits, misses and evictions of a Guava cache (named like the meters of Micrometer's GuavaCacheMetrics)
+     * @param registry registry to register the meters in
+     * @param name name of the cache (tag "cache")
+     * @param owner owner of the cache (only weakly referenced by the meters)
+     * @param stats function to get the current statistics of the cache from its owner
+     */
+    private static <T> void bindCache(MeterRegistry registry, String name, T owner, Function<T, CacheStats> stats) {
+        FunctionCounter.builder("cache.gets", owner, o -> stats.apply(o).hitCount())
+                .tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", owner, o -> stats.apply(o).missCount())
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", owner, o -> stats.apply(o).evictionCount())
+                .tags("cache", name)
+                .register(registry);
+    }
+}
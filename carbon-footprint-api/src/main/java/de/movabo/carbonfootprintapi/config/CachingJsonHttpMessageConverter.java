@@ -0,0 +1,277 @@
+/**
+*    Copyright 2025 Moritz Bock and Software GmbH (previously Software AG)
+*    
+*    Licensed under the Apache License, Version 2.0 (the "License");
+*    you may not use this file except in compliance with the License.
+*    You may obtain a copy of the License at
+*    
+*      http://www.apache.org/licenses/LICENSE-2.0
+*    
+*    Unless required by applicable law or agreed to in writing, software
+*    distributed under the License is distributed on an "AS IS" BASIS,
+*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*    See the License for the specific language governing permissions and
+*    limitations under the License.
+*/
+
+package de.movabo.carbonfootprintapi.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.digitaltwin.aas4j.v3.model.AssetAdministrationShell;
+import org.eclipse.digitaltwin.aas4j.v3.model.Submodel;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Enumeration;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON converter which keeps the serialized UTF-8 bytes of shells and submodels.
+ * Assets of the provider are never modified once they are added, so their JSON only has to be rendered once.
+ * The cache is keyed by the identity of the shell or submodel (weak keys), so an asset which is replaced in the
+ * provider is serialized again and the bytes of the old one are dropped together with it.
+ * Larger responses are also kept gzip-compressed and sent as such to clients accepting gzip, so they are not compressed
+ * again (by the server's response compression) for every request. The compressed variant gets its own ETag.
+ */
+public class CachingJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+    /**
+     * Minimum size of responses to keep a gzip-compressed variant of (same as the default of server.compression)
+     */
+    public static final int MIN_COMPRESSED_SIZE = 2048;
+
+    /**
+     * Serialized JSON by the (identity of the) serialized shell or submodel
+     */
+    private final Cache<Object, Serialized> serialized;
+
+    /**
+     * Serialized JSON of a shell or submodel
+     * @param json UTF-8 JSON
+     * @param gzip gzip-compressed JSON, null if the JSON is too small to be compressed
+     */
+    private record Serialized(byte[] json, byte[] gzip) {
+        int weight() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+
+    /**
+     * Create a converter
+     * @param objectMapper mapper to serialize with
+     * @param maximumBytes maximum number of bytes of serialized JSON to keep
+     */
+    public CachingJsonHttpMessageConverter(ObjectMapper objectMapper, long maximumBytes) {
+        super(objectMapper);
+        serialized = CacheBuilder.newBuilder()
+                .weakKeys()
+                .maximumWeight(maximumBytes)
+                .weigher((Object key, Serialized value) -> value.weight())
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    protected void writeInternal(@NotNull Object object, Type type, @NotNull HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        if (!isCacheable(object, type) || getJsonEncoding(outputMessage.getHeaders().getContentType()) != JsonEncoding.UTF8) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        HttpHeaders headers = outputMessage.getHeaders();
+        Serialized cached = getCached(object, type, headers);
+        byte[] body = cached.json();
+        if (cached.gzip() != null) {
+            // Headers are only sent with the first write to the body, so they can still be set here
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip(currentAcceptEncoding())) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                body = cached.gzip();
+                markGzipETag();
+            }
+        }
+        headers.setContentLength(body.length);
+        outputMessage.getBody().write(body);
+    }
+
+    /**
+     * Serialize a shell or submodel to UTF-8 JSON exactly as it would be written as response, from the cache if possible
+     * @param object shell or submodel to serialize
+     * @param type type the object is serialized as ({@code AssetAdministrationShell.class} or {@code Submodel.class})
+     * @return UTF-8 JSON of the object
+     * @throws IOException the object could not be serialized
+     */
+    public byte[] toJson(@NotNull Object object, @NotNull Class<?> type) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (!isCacheable(object, type)) {
+            return serialize(object, type, headers);
+        }
+        return getCached(object, type, headers).json();
+    }
+
+    /**
+     * Serialize an object exactly as {@link MappingJackson2HttpMessageConverter} writes it as response (e.g. by its
+     * runtime class instead of the declared type)
+     */
+    private byte[] serialize(Object object, Type type, HttpHeaders headers) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        super.writeInternal(object, type, new BufferedOutputMessage(headers, buffer));
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Get the serialized JSON of an object from the cache, serializing it if it is missing
+     */
+    private Serialized getCached(Object object, Type type, HttpHeaders headers) throws IOException {
+        try {
+            return serialized.get(object, () -> {
+                byte[] json = serialize(object, type, headers);
+                return new Serialized(json, json.length < MIN_COMPRESSED_SIZE ? null : gzip(json));
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new HttpMessageNotWritableException("Could not write JSON: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Whether the serialization of an object can be cached
+     * (only shells and submodels which are returned as such, so they are always serialized the same way)
+     */
+    private static boolean isCacheable(Object object, Type type) {
+        return object instanceof AssetAdministrationShell && type == AssetAdministrationShell.class
+                || object instanceof Submodel && type == Submodel.class;
+    }
+
+    /**
+     * Compress a response with gzip
+     * @param bytes uncompressed response
+     * @return gzip-compressed response
+     * @throws IOException the response could not be compressed
+     */
+    public static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(bytes);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Get the ETag of the gzip-compressed variant of a response, so caches never mix it up with the identity variant
+     * (which has the same content, but other bytes)
+     * @param etag ETag of the uncompressed response
+     * @return ETag of the compressed response (suffixed with -gz inside the quotes)
+     */
+    public static String gzipETag(String etag) {
+        if (etag.endsWith("\"")) {
+            return etag.substring(0, etag.length() - 1) + "-gz\"";
+        }
+        return etag + "-gz";
+    }
+
+    /**
+     * Replace the ETag of the current response (as set by the controller) by the ETag of the gzip-compressed variant
+     */
+    private static void markGzipETag() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes && servletAttributes.getResponse() != null) {
+            HttpServletResponse response = servletAttributes.getResponse();
+            String etag = response.getHeader(HttpHeaders.ETAG);
+            if (etag != null) {
+                response.setHeader(HttpHeaders.ETAG, gzipETag(etag));
+            }
+        }
+    }
+
+    /**
+     * Check whether a client accepts gzip-compressed responses
+     * @param acceptEncodings values of the Accept-Encoding header of the request, may be null
+     * @return whether gzip (or, if it is not listed, any encoding) is accepted with a quality greater than 0
+     */
+    public static boolean acceptsGzip(Enumeration<String> acceptEncodings) {
+        if (acceptEncodings == null) {
+            return false;
+        }
+        double gzip = -1;
+        double any = -1;
+        while (acceptEncodings.hasMoreElements()) {
+            for (String encoding : acceptEncodings.nextElement().split(",")) {
+                String[] parts = encoding.split(";");
+                String name = parts[0].trim();
+                double quality = 1;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            quality = Double.parseDouble(parameter.substring(2));
+                        } catch (NumberFormatException e) {
+                            quality = 0;
+                        }
+                    }
+                }
+                if (name.equalsIgnoreCase("gzip")) {
+                    gzip = quality;
+                } else if (name.equals("*")) {
+                    any = quality;
+                }
+            }
+        }
+        // An explicit gzip entry takes precedence over the wildcard
+        return (gzip >= 0 ? gzip : any) > 0;
+    }
+
+    /**
+     * Get the Accept-Encoding header of the request which is currently handled
+     * @return values of the header, null if there is no current request
+     */
+    private static Enumeration<String> currentAcceptEncoding() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return servletAttributes.getRequest().getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        }
+        return null;
+    }
+
+    /**
+     * Get hit and miss statistics of the cache
+     * @return statistics of the cache
+     */
+    public CacheStats stats() {
+        return serialized.stats();
+    }
+
+    /**
+     * Output message writing into a buffer
+     */
+    private record BufferedOutputMessage(HttpHeaders headers, OutputStream body) implements HttpOutputMessage {
+        @Override
+        public @NotNull OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public @NotNull HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
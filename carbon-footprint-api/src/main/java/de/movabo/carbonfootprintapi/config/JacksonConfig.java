@@ -16,10 +16,31 @@
 
 package de.movabo.carbonfootprintapi.config;
 
-import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.EnumDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.type.LogicalType;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import de.movabo.carbonfootprintapi.cli.ParsedArguments;
+import org.jetbrains.annotations.NotNull;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -27,28 +48,165 @@ import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.stream.Collectors;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 public class JacksonConfig {
+    /**
+     * Media type of Smile (binary JSON), as produced by {@link MappingJackson2SmileHttpMessageConverter}
+     */
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
 
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
         SimpleModule module = new SimpleModule();
         module.addSerializer(Enum.class, new CamelCaseEnumSerializer());
+        module.setDeserializerModifier(new BeanDeserializerModifier() {
+            @Override
+            public JsonDeserializer<?> modifyEnumDeserializer(DeserializationConfig config, JavaType type, BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
+                // Enums with a @JsonCreator are deserialized by their creator only
+                if (!(deserializer instanceof EnumDeserializer)) {
+                    return deserializer;
+                }
+                return new CamelCaseEnumDeserializer(type.getRawClass(), deserializer);
+            }
+        });
         objectMapper.registerModule(module);
         return objectMapper;
     }
 
+    /**
+     * JSON converter of the API, keeping the serialized JSON of shells and submodels
+     * @see CachingJsonHttpMessageConverter
+     */
+    @Bean
+    public CachingJsonHttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper, ParsedArguments arguments) {
+        return new CachingJsonHttpMessageConverter(objectMapper, arguments.getJsonCacheSize() * 1024L * 1024L);
+    }
+
+    /**
+     * CBOR converter of the API (Accept: application/cbor), serializing the same object model as the JSON converter.
+     * Replaces the default CBOR converter, which does not know the configuration of the object mapper.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2CborHttpMessageConverter(objectMapper.copyWith(new CBORFactory()));
+    }
+
+    /**
+     * Smile converter of the API (Accept: application/x-jackson-smile), serializing the same object model as the JSON
+     * converter. Replaces the default Smile converter, which does not know the configuration of the object mapper.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(objectMapper.copyWith(new SmileFactory()));
+    }
+
+    /**
+     * Convert the name of an enum constant to camel case, e.g. XS_STRING to XsString
+     * @param name name of the constant
+     * @return camel case name
+     */
+    public static String toCamelCase(String name) {
+        StringBuilder camelCase = new StringBuilder(name.length());
+        for (String word : name.split("_")) {
+            if (!word.isEmpty()) {
+                camelCase.append(word.charAt(0)).append(word.substring(1).toLowerCase());
+            }
+        }
+        return camelCase.toString();
+    }
+
+    /**
+     * Writes enum constants in camel case (e.g. XS_STRING as "XsString").
+     * The names are converted and encoded once per enum type and written as pre-encoded strings.
+     */
     public static class CamelCaseEnumSerializer extends JsonSerializer<Enum> {
+        /**
+         * Camel case names of the constants of an enum type (by their ordinals)
+         */
+        private static final ClassValue<SerializedString[]> NAMES = new ClassValue<>() {
+            @Override
+            protected SerializedString[] computeValue(@NotNull Class<?> type) {
+                Enum<?>[] constants = (Enum<?>[]) type.getEnumConstants();
+                SerializedString[] names = new SerializedString[constants.length];
+                for (Enum<?> constant : constants) {
+                    names[constant.ordinal()] = new SerializedString(toCamelCase(constant.name()));
+                }
+                return names;
+            }
+        };
+
         @Override
         public void serialize(Enum value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
-            String camelCaseValue = Arrays.stream(value.name().split("_"))
-                    .map(word -> word.charAt(0) + word.substring(1).toLowerCase())
-                    .collect(Collectors.joining());
-            gen.writeString(camelCaseValue);
+            gen.writeString(NAMES.get(value.getDeclaringClass())[value.ordinal()]);
+        }
+    }
+
+    /**
+     * Reads enum constants written by {@link CamelCaseEnumSerializer}, also accepting the names of the constants.
+     * Everything else (other tokens like ordinals, names from annotations like @JsonProperty or @JsonValue, unknown
+     * values) is passed on to the default enum deserializer, so its annotations and features still apply.
+     */
+    public static class CamelCaseEnumDeserializer extends StdDeserializer<Enum<?>> implements ContextualDeserializer {
+        /**
+         * Constants of an enum type by their camel case names and their names
+         */
+        private static final ClassValue<Map<String, Enum<?>>> CONSTANTS = new ClassValue<>() {
+            @Override
+            protected Map<String, Enum<?>> computeValue(@NotNull Class<?> type) {
+                Map<String, Enum<?>> constants = new HashMap<>();
+                for (Object constant : type.getEnumConstants()) {
+                    Enum<?> value = (Enum<?>) constant;
+                    constants.put(value.name(), value);
+                    constants.putIfAbsent(toCamelCase(value.name()), value);
+                }
+                return constants;
+            }
+        };
+
+        private final Map<String, Enum<?>> constants;
+        private final JsonDeserializer<?> defaultDeserializer;
+
+        /**
+         * Create a deserializer
+         * @param type enum type to deserialize
+         * @param defaultDeserializer deserializer Jackson would use for the enum type, for all values which are
+         *                            not camel case names or names of the constants
+         */
+        public CamelCaseEnumDeserializer(Class<?> type, JsonDeserializer<?> defaultDeserializer) {
+            super(type);
+            this.constants = CONSTANTS.get(type);
+            this.defaultDeserializer = defaultDeserializer;
+        }
+
+        @Override
+        public JsonDeserializer<?> createContextual(DeserializationContext context, BeanProperty property) throws JsonMappingException {
+            JsonDeserializer<?> contextual = context.handleSecondaryContextualization(defaultDeserializer, property, context.constructType(handledType()));
+            return contextual == defaultDeserializer ? this : new CamelCaseEnumDeserializer(handledType(), contextual);
+        }
+
+        @Override
+        public Enum<?> deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.hasToken(JsonToken.VALUE_STRING)) {
+                Enum<?> constant = constants.get(parser.getText());
+                if (constant != null) {
+                    return constant;
+                }
+            }
+            return (Enum<?>) defaultDeserializer.deserialize(parser, context);
+        }
+
+        @Override
+        public LogicalType logicalType() {
+            return LogicalType.Enum;
+        }
+
+        @Override
+        public boolean isCachable() {
+            return defaultDeserializer.isCachable();
         }
     }
-}
\ No newline at end of file
+}
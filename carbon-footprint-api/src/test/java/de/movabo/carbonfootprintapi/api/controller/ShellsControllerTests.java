@@ -0,0 +1,357 @@
+package de.movabo.carbonfootprintapi.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import de.movabo.carbonfootprintapi.assets.Attachment;
+import de.movabo.carbonfootprintapi.assets.AssetsProvider;
+import de.movabo.carbonfootprintapi.assets.ExternalShellFetcher;
+import de.movabo.carbonfootprintapi.assets.InMemoryAssetProvider;
+import de.movabo.carbonfootprintapi.cli.ParsedArguments;
+import de.movabo.carbonfootprintapi.config.CachingJsonHttpMessageConverter;
+import de.movabo.carbonfootprintapi.config.JacksonConfig;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.aasx.AASXSerializer;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.aasx.InMemoryFile;
+import org.eclipse.digitaltwin.aas4j.v3.model.*;
+import org.eclipse.digitaltwin.aas4j.v3.model.impl.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ShellsControllerTests {
+
+    private static final String SHELL_ID = "https://example.com/shells/Attached";
+    private static final String GLOBAL_ASSET_ID = "https://example.com/assets/Attached";
+    private static final String SUBMODEL_ID = "https://example.com/submodels/Attached/Documentation";
+    private static final String DATASHEET_PATH = "/aasx/files/datasheet.pdf";
+
+    @TempDir
+    Path directory;
+
+    private InMemoryAssetProvider provider;
+    private ExternalShellFetcher fetcher;
+    private MockMvc mvc;
+    private byte[] datasheet;
+
+    static String encode(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write an .aasx-file with one shell whose submodel contains a datasheet (File element)
+     */
+    private File writeAasx() throws Exception {
+        datasheet = new byte[64 * 1024];
+        new Random(42).nextBytes(datasheet);
+        Submodel submodel = new DefaultSubmodel.Builder()
+                .id(SUBMODEL_ID)
+                .idShort("Documentation")
+                .kind(ModellingKind.INSTANCE)
+                .submodelElements(new DefaultFile.Builder()
+                        .idShort("Datasheet")
+                        .contentType("application/pdf")
+                        .value(DATASHEET_PATH)
+                        .build())
+                .build();
+        AssetAdministrationShell shell = new DefaultAssetAdministrationShell.Builder()
+                .id(SHELL_ID)
+                .idShort("Attached")
+                .assetInformation(new DefaultAssetInformation.Builder()
+                        .assetKind(AssetKind.INSTANCE)
+                        .globalAssetId(GLOBAL_ASSET_ID)
+                        .build())
+                .submodels(new DefaultReference.Builder()
+                        .type(ReferenceTypes.MODEL_REFERENCE)
+                        .keys(new DefaultKey.Builder().type(KeyTypes.SUBMODEL).value(SUBMODEL_ID).build())
+                        .build())
+                .build();
+        Environment env = new DefaultEnvironment.Builder()
+                .assetAdministrationShells(shell)
+                .submodels(submodel)
+                .build();
+        File file = directory.resolve("attached.aasx").toFile();
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            new AASXSerializer().write(env, List.of(new InMemoryFile(datasheet, DATASHEET_PATH)), out);
+        }
+        return file;
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        provider = new InMemoryAssetProvider();
+        provider.addAssets(writeAasx(), AssetsProvider.AssetType.AASX);
+        JacksonConfig jacksonConfig = new JacksonConfig();
+        ObjectMapper objectMapper = jacksonConfig.objectMapper();
+        CachingJsonHttpMessageConverter jsonConverter = new CachingJsonHttpMessageConverter(objectMapper, 1024 * 1024);
+        fetcher = new ExternalShellFetcher(provider, Duration.ofSeconds(1), Duration.ofSeconds(1), 1024, Duration.ofMinutes(1), 1);
+        ShellsController controller = new ShellsController(provider, fetcher, new ParsedArguments(new String[0]), jsonConverter);
+        mvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new ErrorResponseController(), new VaryByAcceptAdvice())
+                .setMessageConverters(
+                        new ByteArrayHttpMessageConverter(),
+                        new StringHttpMessageConverter(),
+                        new ResourceHttpMessageConverter(),
+                        new ResourceRegionHttpMessageConverter(),
+                        jsonConverter,
+                        jacksonConfig.cborHttpMessageConverter(objectMapper),
+                        jacksonConfig.smileHttpMessageConverter(objectMapper))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fetcher.close();
+    }
+
+    private String attachmentUrl() {
+        return "/shells/" + encode(GLOBAL_ASSET_ID) + "/submodels/" + encode(SUBMODEL_ID) + "/submodel-elements/Datasheet/attachment";
+    }
+
+    @Test
+    void conditionalRequests() throws Exception {
+        String url = "/shells/" + encode(GLOBAL_ASSET_ID);
+        MvcResult result = mvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(jsonPath("$.id").value(SHELL_ID))
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = result.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mvc.perform(get(url).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+        // Other parts of the same asset have their own ETag
+        mvc.perform(get(attachmentUrl()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        // A changed file is a new version of the asset
+        File file = provider.getFiles().iterator().next();
+        assertTrue(file.setLastModified(file.lastModified() - 60_000));
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+        // Unknown shells have no validators
+        mvc.perform(get("/shells/" + encode("https://example.com/assets/Unknown")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void compressedVariantHasOwnETag() throws Exception {
+        provider.addEnvironment(new DefaultEnvironment.Builder()
+                .assetAdministrationShells(new DefaultAssetAdministrationShell.Builder()
+                        .id("https://example.com/shells/Large")
+                        .idShort("Large")
+                        .description(new DefaultLangStringTextType.Builder()
+                                .language("en")
+                                .text("x".repeat(CachingJsonHttpMessageConverter.MIN_COMPRESSED_SIZE))
+                                .build())
+                        .assetInformation(new DefaultAssetInformation.Builder()
+                                .assetKind(AssetKind.INSTANCE)
+                                .globalAssetId("https://example.com/assets/Large")
+                                .build())
+                        .build())
+                .build(), provider.getFiles().iterator().next(), false);
+        String url = "/shells/" + encode("https://example.com/assets/Large");
+
+        String identity = mvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String gzip = mvc.perform(get(url).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(CachingJsonHttpMessageConverter.gzipETag(identity), gzip);
+
+        mvc.perform(get(url).header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, gzip))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, gzip));
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, identity))
+                .andExpect(status().isNotModified());
+        // The compressed copy of a client does not match the identity variant
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, gzip))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, identity));
+    }
+
+    @Test
+    void snapshots() throws Exception {
+        MvcResult result = mvc.perform(get("/asset/all"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + SHELL_ID + "']").value("Attached"))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(get("/asset/all"))
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mvc.perform(get("/asset/all").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // Another asset is another snapshot
+        provider.addEnvironment(new DefaultEnvironment.Builder()
+                .assetAdministrationShells(new DefaultAssetAdministrationShell.Builder()
+                        .id("https://example.com/shells/Added")
+                        .idShort("Added")
+                        .assetInformation(new DefaultAssetInformation.Builder()
+                                .assetKind(AssetKind.INSTANCE)
+                                .globalAssetId("https://example.com/assets/Added")
+                                .build())
+                        .build())
+                .build(), null, false);
+        mvc.perform(get("/asset/all").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$['https://example.com/shells/Added']").value("Added"));
+    }
+
+    @Test
+    void negotiatedFormats() throws Exception {
+        String url = "/shells/" + encode(GLOBAL_ASSET_ID);
+        MvcResult json = mvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertTrue(json.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+        String jsonETag = json.getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult cbor = mvc.perform(get(url).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        assertTrue(cbor.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+        String cborETag = cbor.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(cborETag);
+        assertNotEquals(jsonETag, cborETag);
+        assertEquals(SHELL_ID, new ObjectMapper(new CBORFactory()).readTree(cbor.getResponse().getContentAsByteArray()).get("id").asText());
+        // A cached JSON response does not match a request for CBOR, and the other way around
+        mvc.perform(get(url).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andExpect(status().isOk());
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, cborETag))
+                .andExpect(status().isOk());
+        mvc.perform(get(url).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cborETag))
+                .andExpect(status().isNotModified());
+
+        // Binary snapshots are validated like JSON snapshots
+        MvcResult smile = mvc.perform(get("/asset/all").accept(JacksonConfig.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(JacksonConfig.APPLICATION_SMILE))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        assertTrue(smile.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+        String smileETag = smile.getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals("Attached", new ObjectMapper(new SmileFactory()).readTree(smile.getResponse().getContentAsByteArray())
+                .get(SHELL_ID).asText());
+        mvc.perform(get("/asset/all").accept(JacksonConfig.APPLICATION_SMILE).header(HttpHeaders.IF_NONE_MATCH, smileETag))
+                .andExpect(status().isNotModified());
+        mvc.perform(get("/asset/all").header(HttpHeaders.IF_NONE_MATCH, smileETag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(smileETag)));
+    }
+
+    @Test
+    void paging() throws Exception {
+        mvc.perform(get("/shell-descriptors").param("limit", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.length()").value(1))
+                .andExpect(jsonPath("$.result[0].id").value(SHELL_ID))
+                .andExpect(jsonPath("$.paging_metadata.cursor").doesNotExist());
+        mvc.perform(get("/shell-descriptors").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        String refs = "/shells/" + encode(GLOBAL_ASSET_ID) + "/submodel-refs";
+        mvc.perform(get(refs).param("limit", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result[0].keys[0].value").value(SUBMODEL_ID))
+                .andExpect(jsonPath("$.paging_metadata.cursor").doesNotExist());
+        // Unknown shells are not found, paged or not
+        String unknown = "/shells/" + encode("https://example.com/assets/Unknown") + "/submodel-refs";
+        mvc.perform(get(unknown))
+                .andExpect(status().isNotFound());
+        mvc.perform(get(unknown).param("limit", "1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void batch() throws Exception {
+        String body = "{\"shells\": [\"" + GLOBAL_ASSET_ID + "\", \"https://example.com/assets/Unknown\"], " +
+                "\"submodels\": [{\"aasIdentifier\": \"" + GLOBAL_ASSET_ID + "\", \"submodelIdentifier\": \"" + SUBMODEL_ID + "\"}]}";
+        MvcResult result = mvc.perform(post("/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].aasIdentifier").value(GLOBAL_ASSET_ID))
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].result.id").value(SHELL_ID))
+                .andExpect(jsonPath("$[1].status").value(404))
+                .andExpect(jsonPath("$[1].result").doesNotExist())
+                .andExpect(jsonPath("$[2].submodelIdentifier").value(SUBMODEL_ID))
+                .andExpect(jsonPath("$[2].status").value(200))
+                .andExpect(jsonPath("$[2].result.submodelElements[0].idShort").value("Datasheet"));
+    }
+
+    @Test
+    void streamAttachment() throws Exception {
+        mvc.perform(get(attachmentUrl()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/pdf"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, datasheet.length))
+                .andExpect(content().bytes(datasheet));
+        mvc.perform(get("/shells/" + encode(GLOBAL_ASSET_ID) + "/submodels/" + encode(SUBMODEL_ID) + "/submodel-elements/Missing/attachment"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void attachmentRange() throws Exception {
+        mvc.perform(get(attachmentUrl()).header(HttpHeaders.RANGE, "bytes=1000-1999"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1000-1999/" + datasheet.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(datasheet, 1000, 2000)));
+    }
+
+    @Test
+    void attachmentOfUnknownLength() throws Exception {
+        ShellsController.AttachmentResource resource = new ShellsController.AttachmentResource(
+                new Attachment("application/pdf", -1, () -> new ByteArrayInputStream(datasheet)));
+        assertEquals(datasheet.length, resource.contentLength());
+        ResourceRegion region = HttpRange.createByteRange(1000, 1999).toResourceRegion(resource);
+        assertEquals(1000, region.getPosition());
+        assertEquals(1000, region.getCount());
+        // The suffix of a range is relative to the determined length
+        assertEquals(datasheet.length - 100, HttpRange.createSuffixRange(100).toResourceRegion(resource).getPosition());
+    }
+}
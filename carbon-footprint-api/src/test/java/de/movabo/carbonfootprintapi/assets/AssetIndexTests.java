@@ -0,0 +1,76 @@
+package de.movabo.carbonfootprintapi.assets;
+
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.json.JsonSerializer;
+import org.eclipse.digitaltwin.aas4j.v3.model.Environment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetIndexTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTrip() throws Exception {
+        Environment env = InMemoryAssetProviderTests.createEnvironment("Indexed");
+        File file = directory.resolve("indexed.json").toFile();
+        Files.writeString(file.toPath(), new JsonSerializer().write(env), StandardCharsets.UTF_8);
+        File indexDirectory = directory.resolve("index").toFile();
+
+        AssetIndex index = AssetIndex.load(indexDirectory);
+        assertNull(index.getValid(file, AssetsProvider.AssetType.AUTO));
+        index.put(file, AssetsProvider.AssetType.AUTO, env);
+        index.save(List.of(file));
+
+        AssetIndex.Entry entry = AssetIndex.load(indexDirectory).getValid(file, AssetsProvider.AssetType.AUTO);
+        assertNotNull(entry);
+        assertEquals(Set.of("https://example.com/submodels/Indexed/0", "https://example.com/submodels/Indexed/1", "https://example.com/submodels/Indexed/2"),
+                entry.getSubmodelSemanticIds().keySet());
+        Environment shells = AssetIndex.getShells(entry);
+        assertEquals("https://example.com/shells/Indexed", shells.getAssetAdministrationShells().get(0).getId());
+        assertTrue(shells.getSubmodels().isEmpty());
+        // Another type is not taken from the index
+        assertNull(AssetIndex.load(indexDirectory).getValid(file, AssetsProvider.AssetType.AASX));
+    }
+
+    @Test
+    void changedAndUnusedFilesAreInvalidated() throws Exception {
+        Environment env = InMemoryAssetProviderTests.createEnvironment("Changed");
+        File file = directory.resolve("changed.json").toFile();
+        File unused = directory.resolve("unused.json").toFile();
+        Files.writeString(file.toPath(), new JsonSerializer().write(env), StandardCharsets.UTF_8);
+        Files.writeString(unused.toPath(), new JsonSerializer().write(env), StandardCharsets.UTF_8);
+        File indexDirectory = directory.resolve("index").toFile();
+
+        AssetIndex index = AssetIndex.load(indexDirectory);
+        index.put(file, AssetsProvider.AssetType.AUTO, env);
+        index.put(unused, AssetsProvider.AssetType.AUTO, env);
+        index.save(List.of(file));
+
+        AssetIndex loaded = AssetIndex.load(indexDirectory);
+        assertNull(loaded.getValid(unused, AssetsProvider.AssetType.AUTO));
+        assertNotNull(loaded.getValid(file, AssetsProvider.AssetType.AUTO));
+        Files.writeString(file.toPath(), " ", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertNull(loaded.getValid(file, AssetsProvider.AssetType.AUTO));
+    }
+
+    @Test
+    void unreadableIndexIsRebuilt() throws Exception {
+        File indexDirectory = directory.resolve("index").toFile();
+        Files.createDirectories(indexDirectory.toPath());
+        Files.writeString(indexDirectory.toPath().resolve(AssetIndex.FILE_NAME), "{broken", StandardCharsets.UTF_8);
+
+        AssetIndex index = AssetIndex.load(indexDirectory);
+        assertNull(index.getValid(directory.resolve("any.json").toFile(), AssetsProvider.AssetType.AUTO));
+    }
+}
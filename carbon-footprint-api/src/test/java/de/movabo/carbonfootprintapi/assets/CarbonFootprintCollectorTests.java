@@ -0,0 +1,175 @@
+package de.movabo.carbonfootprintapi.assets;
+
+import de.movabo.carbonfootprintapi.api.model.CarbonFootprint;
+import org.eclipse.digitaltwin.aas4j.v3.model.*;
+import org.eclipse.digitaltwin.aas4j.v3.model.impl.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarbonFootprintCollectorTests {
+
+    private static String shellId(String name) {
+        return "https://example.com/shells/" + name;
+    }
+
+    private static String globalAssetId(String name) {
+        return "https://example.com/assets/" + name;
+    }
+
+    private static Reference globalReference(String value) {
+        return new DefaultReference.Builder()
+                .type(ReferenceTypes.EXTERNAL_REFERENCE)
+                .keys(new DefaultKey.Builder().type(KeyTypes.GLOBAL_REFERENCE).value(value).build())
+                .build();
+    }
+
+    private static Property property(String idShort, String semanticId, DataTypeDefXsd valueType, String value) {
+        return new DefaultProperty.Builder()
+                .idShort(idShort)
+                .semanticId(globalReference(semanticId))
+                .valueType(valueType)
+                .value(value)
+                .build();
+    }
+
+    /**
+     * Create a carbon footprint submodel with a product and a transport footprint
+     */
+    private static Submodel footprint(String name, String product, String transport) {
+        return new DefaultSubmodel.Builder()
+                .id("https://example.com/submodels/" + name + "/CarbonFootprint")
+                .idShort("CarbonFootprint")
+                .kind(ModellingKind.INSTANCE)
+                .semanticId(globalReference(SemanticIds.CARBON_FOOTPRINT_0_9))
+                .submodelElements(new DefaultSubmodelElementCollection.Builder()
+                        .idShort("ProductCarbonFootprint")
+                        .value(property("PCFCO2eq", SemanticIds.PCF_CO2EQ, DataTypeDefXsd.DOUBLE, product))
+                        .build())
+                .submodelElements(new DefaultSubmodelElementCollection.Builder()
+                        .idShort("TransportCarbonFootprint")
+                        .value(property("TCFCO2eq", SemanticIds.TCF_CO2EQ, DataTypeDefXsd.DOUBLE, transport))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Create a node of a hierarchical structure
+     * @param bulkCount bulk count of the node, null for none
+     */
+    private static Entity node(String idShort, String name, String bulkCount, Entity... children) {
+        List<SubmodelElement> statements = new ArrayList<>(List.of(children));
+        if (bulkCount != null) {
+            statements.add(property("BulkCount", SemanticIds.HIERARCHY_BULK_COUNT, DataTypeDefXsd.UNSIGNED_LONG, bulkCount));
+        }
+        return new DefaultEntity.Builder()
+                .idShort(idShort)
+                .entityType(EntityType.SELF_MANAGED_ENTITY)
+                .globalAssetId(globalAssetId(name))
+                .statements(statements)
+                .build();
+    }
+
+    /**
+     * Create a hierarchical structures submodel
+     */
+    private static Submodel hierarchy(String name, String archeType, Entity entryNode) {
+        return new DefaultSubmodel.Builder()
+                .id("https://example.com/submodels/" + name + "/HierarchicalStructures/" + archeType)
+                .idShort("HierarchicalStructures")
+                .kind(ModellingKind.INSTANCE)
+                .semanticId(globalReference(SemanticIds.HIERARCHY_STRUCTURE))
+                .submodelElements(property("ArcheType", SemanticIds.HIERARCHY_ARCHE_TYPE, DataTypeDefXsd.STRING, archeType))
+                .submodelElements(entryNode)
+                .build();
+    }
+
+    private static Environment environment(String name, Submodel... submodels) {
+        AssetAdministrationShell shell = new DefaultAssetAdministrationShell.Builder()
+                .id(shellId(name))
+                .idShort(name)
+                .assetInformation(new DefaultAssetInformation.Builder()
+                        .assetKind(AssetKind.INSTANCE)
+                        .globalAssetId(globalAssetId(name))
+                        .build())
+                .submodels(List.of(submodels).stream()
+                        .map(submodel -> (Reference) new DefaultReference.Builder()
+                                .type(ReferenceTypes.MODEL_REFERENCE)
+                                .keys(new DefaultKey.Builder().type(KeyTypes.SUBMODEL).value(submodel.getId()).build())
+                                .build())
+                        .toList())
+                .build();
+        return new DefaultEnvironment.Builder()
+                .assetAdministrationShells(List.of(shell))
+                .submodels(List.of(submodels))
+                .build();
+    }
+
+    /**
+     * Provider with the hierarchy A -(2x)-> B -(3x)-> C -(4x)-> D (not available), where B also states A as part
+     * (cycle) and B is part of X according to a OneUp structure
+     */
+    private static InMemoryAssetProvider createProvider() {
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        provider.addEnvironment(environment("A",
+                footprint("A", "10", "1"),
+                hierarchy("A", "Full", node("EntryNode", "A", null,
+                        node("B", "B", "2",
+                                node("C", "C", "3"))))), null, false);
+        provider.addEnvironment(environment("B",
+                footprint("B", "5", "0.5"),
+                hierarchy("B", "Full", node("EntryNode", "B", null,
+                        node("A", "A", null))),
+                hierarchy("B", "OneUp", node("EntryNode", "B", null,
+                        node("X", "X", null)))), null, false);
+        provider.addEnvironment(environment("C",
+                footprint("C", "1", "0.1"),
+                hierarchy("C", "Full", node("EntryNode", "C", null,
+                        node("D", "D", "4")))), null, false);
+        provider.addEnvironment(environment("X",
+                footprint("X", "1000", "1000")), null, false);
+        return provider;
+    }
+
+    @Test
+    void rollUpHierarchy() {
+        List<CarbonFootprint> footprints = new CarbonFootprintCollector(createProvider()).collect(globalAssetId("A"));
+
+        assertNotNull(footprints);
+        assertEquals(shellId("A"), footprints.get(0).getAssetId());
+        Map<String, CarbonFootprint> byId = footprints.stream()
+                .collect(Collectors.toMap(CarbonFootprint::getAssetId, Function.identity()));
+        // The OneUp structure of B is not followed, the unavailable D is listed with its global asset ID
+        assertEquals(Set.of(shellId("A"), shellId("B"), shellId("C"), globalAssetId("D")), byId.keySet());
+
+        CarbonFootprint a = byId.get(shellId("A"));
+        assertEquals(1, a.getFootprints().size());
+        assertEquals("CarbonFootprint", a.getFootprints().get(0).getIdShort());
+        assertEquals(Map.of(shellId("B"), 2.0), a.getBulkCounts());
+        assertEquals(Map.of(shellId("C"), 3.0, shellId("A"), 1.0), byId.get(shellId("B")).getBulkCounts());
+        assertEquals(Map.of(globalAssetId("D"), 4.0), byId.get(shellId("C")).getBulkCounts());
+        assertTrue(byId.get(globalAssetId("D")).getFootprints().isEmpty());
+
+        // C: 1 + 4 * 0, B: 5 + 3 * 1 (the cycle back to A is ignored), A: 10 + 2 * 8
+        assertEquals(1, byId.get(shellId("C")).getTotalProductCo2eq(), 1e-9);
+        assertEquals(8, byId.get(shellId("B")).getTotalProductCo2eq(), 1e-9);
+        assertEquals(10, a.getProductCo2eq(), 1e-9);
+        assertEquals(26, a.getTotalProductCo2eq(), 1e-9);
+        // C: 0.1, B: 0.5 + 3 * 0.1, A: 1 + 2 * 0.8
+        assertEquals(0.8, byId.get(shellId("B")).getTotalTransportCo2eq(), 1e-9);
+        assertEquals(1, a.getTransportCo2eq(), 1e-9);
+        assertEquals(2.6, a.getTotalTransportCo2eq(), 1e-9);
+    }
+
+    @Test
+    void unknownAsset() {
+        assertNull(new CarbonFootprintCollector(createProvider()).collect(globalAssetId("Unknown")));
+    }
+}
@@ -0,0 +1,113 @@
+package de.movabo.carbonfootprintapi.assets;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackagingURIHelper;
+import org.apache.poi.openxml4j.opc.TargetMode;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.aasx.AASXSerializer;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.core.DeserializationException;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.json.JsonSerializer;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.xml.XmlSerializer;
+import org.eclipse.digitaltwin.aas4j.v3.model.Environment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnvironmentReaderTests {
+
+    @TempDir
+    Path directory;
+
+    private File write(String name, byte[] content) throws Exception {
+        File file = directory.resolve(name).toFile();
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private static void assertEnvironment(String name, Environment env) {
+        assertEquals("https://example.com/shells/" + name, env.getAssetAdministrationShells().get(0).getId());
+        assertEquals(InMemoryAssetProviderTests.SUBMODELS_PER_ASSET, env.getSubmodels().size());
+    }
+
+    @Test
+    void sniffAndRead() throws Exception {
+        // The file names do not match the content, the format is only detected from the content
+        File json = write("json.aasx", ("\uFEFF \n" + new JsonSerializer().write(InMemoryAssetProviderTests.createEnvironment("Json")))
+                .getBytes(StandardCharsets.UTF_8));
+        File xml = write("xml.json", new XmlSerializer().write(InMemoryAssetProviderTests.createEnvironment("Xml"))
+                .getBytes(StandardCharsets.UTF_8));
+        File aasx = directory.resolve("aasx.xml").toFile();
+        try (OutputStream out = Files.newOutputStream(aasx.toPath())) {
+            new AASXSerializer().write(InMemoryAssetProviderTests.createEnvironment("Aasx"), List.of(), out);
+        }
+
+        assertEquals(AssetsProvider.AssetType.JSON, EnvironmentReader.sniff(json));
+        assertEquals(AssetsProvider.AssetType.XML, EnvironmentReader.sniff(xml));
+        assertEquals(AssetsProvider.AssetType.AASX, EnvironmentReader.sniff(aasx));
+        assertEnvironment("Json", EnvironmentReader.read(json, AssetsProvider.AssetType.AUTO));
+        assertEnvironment("Xml", EnvironmentReader.read(xml, AssetsProvider.AssetType.AUTO));
+        assertEnvironment("Aasx", EnvironmentReader.read(aasx, AssetsProvider.AssetType.AUTO));
+    }
+
+    @Test
+    void jsonPartOfAasxWithByteOrderMark() throws Exception {
+        File aasx = directory.resolve("json.aasx").toFile();
+        try (OPCPackage aasxPackage = OPCPackage.create(aasx)) {
+            PackagePart origin = aasxPackage.createPart(PackagingURIHelper.createPartName("/aasx/aasx-origin"), "text/plain");
+            try (OutputStream out = origin.getOutputStream()) {
+                out.write("Intentionally empty.".getBytes(StandardCharsets.UTF_8));
+            }
+            aasxPackage.addRelationship(origin.getPartName(), TargetMode.INTERNAL, "http://admin-shell.io/aasx/relationships/aasx-origin");
+            PackagePart spec = aasxPackage.createPart(PackagingURIHelper.createPartName("/aasx/environment.json"), "application/json");
+            try (OutputStream out = spec.getOutputStream()) {
+                out.write(("\uFEFF" + new JsonSerializer().write(InMemoryAssetProviderTests.createEnvironment("AasxJson")))
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            origin.addRelationship(spec.getPartName(), TargetMode.INTERNAL, "http://admin-shell.io/aasx/relationships/aas-spec");
+        }
+
+        assertEquals(AssetsProvider.AssetType.AASX, EnvironmentReader.sniff(aasx));
+        assertEnvironment("AasxJson", EnvironmentReader.read(aasx, AssetsProvider.AssetType.AUTO));
+    }
+
+    @Test
+    void unknownFormat() throws Exception {
+        File text = write("text.json", "not an environment".getBytes(StandardCharsets.UTF_8));
+        File empty = write("empty.json", new byte[0]);
+
+        assertEquals(AssetsProvider.AssetType.AUTO, EnvironmentReader.sniff(text));
+        assertEquals(AssetsProvider.AssetType.AUTO, EnvironmentReader.sniff(empty));
+        assertThrows(DeserializationException.class, () -> EnvironmentReader.read(text, AssetsProvider.AssetType.AUTO));
+        // An explicit type is not detected again
+        assertThrows(DeserializationException.class, () -> EnvironmentReader.read(text, AssetsProvider.AssetType.JSON));
+    }
+
+    @Test
+    void addAssetsFromStreamOrFile() throws Exception {
+        byte[] uploaded = new JsonSerializer().write(InMemoryAssetProviderTests.createEnvironment("Uploaded")).getBytes(StandardCharsets.UTF_8);
+        File stored = write("stored.json", new JsonSerializer().write(InMemoryAssetProviderTests.createEnvironment("Stored"))
+                .getBytes(StandardCharsets.UTF_8));
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+
+        // Without a file, the stream is spooled to a temp file
+        assertEquals(Set.of("https://example.com/shells/Uploaded"),
+                provider.addAssets(new ByteArrayInputStream(uploaded), AssetsProvider.AssetType.AUTO, null, false));
+        // With a file, the asset is read from the file and no stream is needed
+        assertEquals(Set.of("https://example.com/shells/Stored"),
+                provider.addAssets(null, AssetsProvider.AssetType.AUTO, stored, true));
+        assertEquals(2, provider.getFiles().size());
+        assertTrue(provider.getFiles().contains(stored));
+        assertEquals(InMemoryAssetProviderTests.SUBMODELS_PER_ASSET, provider.availableSubmodelIds("https://example.com/assets/Uploaded").size());
+        assertTrue(provider.hasAssetAdministrationShell("https://example.com/assets/Stored"));
+    }
+}
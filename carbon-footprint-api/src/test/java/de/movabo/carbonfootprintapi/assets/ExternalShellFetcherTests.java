@@ -0,0 +1,126 @@
+package de.movabo.carbonfootprintapi.assets;
+
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.json.JsonSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.ErrorResponseException;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalShellFetcherTests {
+
+    private HttpServer server;
+    private final ConcurrentHashMap<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        for (String name: List.of("First", "Second")) {
+            byte[] body = new JsonSerializer().write(InMemoryAssetProviderTests.createEnvironment(name)).getBytes(StandardCharsets.UTF_8);
+            server.createContext("/" + name, exchange -> {
+                hits.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+                try {
+                    // Give concurrent requests the chance to overlap
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+        }
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private String url(String name) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/" + name;
+    }
+
+    private ExternalShellFetcher createFetcher(InMemoryAssetProvider provider, long maxBodySize, long maximumSize) {
+        return new ExternalShellFetcher(provider, Duration.ofSeconds(5), Duration.ofSeconds(5), maxBodySize, Duration.ofMinutes(5), maximumSize);
+    }
+
+    @Test
+    void concurrentFetchesAreDeduplicated() {
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        try (ExternalShellFetcher fetcher = createFetcher(provider, 1024 * 1024, 10)) {
+            List<CompletableFuture<Collection<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(fetcher.fetch(url("First")));
+            }
+            for (CompletableFuture<Collection<String>> future: futures) {
+                assertEquals(List.of("https://example.com/shells/First"), List.copyOf(future.join()));
+            }
+            assertEquals(1, hits.get("First").get());
+            assertTrue(provider.hasAssetAdministrationShell("https://example.com/shells/First"));
+            // Fetched shells are hidden
+            assertFalse(provider.availableAssetAdministrationShellIds().containsKey("https://example.com/shells/First"));
+        }
+    }
+
+    @Test
+    void evictionRemovesShells() {
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        try (ExternalShellFetcher fetcher = createFetcher(provider, 1024 * 1024, 1)) {
+            fetcher.fetch(url("First")).join();
+            fetcher.fetch(url("Second")).join();
+
+            assertFalse(provider.hasAssetAdministrationShell("https://example.com/shells/First"));
+            assertFalse(provider.hasAssetAdministrationShell("https://example.com/assets/First"));
+            assertTrue(provider.availableSubmodelIds("https://example.com/assets/First").isEmpty());
+            assertTrue(provider.hasAssetAdministrationShell("https://example.com/shells/Second"));
+
+            // The evicted URL is fetched again
+            fetcher.fetch(url("First")).join();
+            assertEquals(2, hits.get("First").get());
+            assertTrue(provider.hasAssetAdministrationShell("https://example.com/shells/First"));
+        }
+    }
+
+    @Test
+    void evictionKeepsShellsAddedAgain() {
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        try (ExternalShellFetcher fetcher = createFetcher(provider, 1024 * 1024, 1)) {
+            Collection<String> ids = fetcher.fetch(url("First")).join();
+            // The shell is provided from another file now, e.g. by a newer fetch of the same URL
+            provider.removeAssets(ids);
+            provider.addEnvironment(InMemoryAssetProviderTests.createEnvironment("First"), new File("refetched.json"), true);
+            fetcher.fetch(url("Second")).join();
+
+            assertTrue(provider.hasAssetAdministrationShell("https://example.com/shells/First"));
+            assertTrue(provider.hasAssetAdministrationShell("https://example.com/shells/Second"));
+        }
+    }
+
+    @Test
+    void tooLargeBodyIsRejected() {
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        try (ExternalShellFetcher fetcher = createFetcher(provider, 16, 10)) {
+            CompletionException e = assertThrows(CompletionException.class, () -> fetcher.fetch(url("First")).join());
+            ErrorResponseException cause = assertInstanceOf(ErrorResponseException.class, e.getCause());
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, cause.getStatusCode());
+            assertFalse(provider.hasAssetAdministrationShell("https://example.com/shells/First"));
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package de.movabo.carbonfootprintapi.assets;
+
+import org.eclipse.digitaltwin.aas4j.v3.model.*;
+import org.eclipse.digitaltwin.aas4j.v3.model.impl.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryAssetProviderTests {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int ASSETS_PER_WRITER = 500;
+    private static final int REPLACEMENTS_PER_WRITER = 200;
+    static final int SUBMODELS_PER_ASSET = 3;
+
+    /**
+     * Create an environment with one shell and a few submodels
+     */
+    static Environment createEnvironment(String name) {
+        List<Submodel> submodels = new ArrayList<>();
+        List<Reference> references = new ArrayList<>();
+        for (int i = 0; i < SUBMODELS_PER_ASSET; i++) {
+            String submodelId = "https://example.com/submodels/" + name + "/" + i;
+            submodels.add(new DefaultSubmodel.Builder()
+                    .id(submodelId)
+                    .idShort("Submodel" + i)
+                    .kind(ModellingKind.INSTANCE)
+                    .build());
+            references.add(new DefaultReference.Builder()
+                    .type(ReferenceTypes.MODEL_REFERENCE)
+                    .keys(new DefaultKey.Builder().type(KeyTypes.SUBMODEL).value(submodelId).build())
+                    .build());
+        }
+        AssetAdministrationShell shell = new DefaultAssetAdministrationShell.Builder()
+                .id("https://example.com/shells/" + name)
+                .idShort(name)
+                .assetInformation(new DefaultAssetInformation.Builder()
+                        .assetKind(AssetKind.INSTANCE)
+                        .globalAssetId("https://example.com/assets/" + name)
+                        .build())
+                .submodels(references)
+                .build();
+        return new DefaultEnvironment.Builder()
+                .assetAdministrationShells(List.of(shell))
+                .submodels(submodels)
+                .build();
+    }
+
+    @Test
+    void addEnvironment() {
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        provider.addEnvironment(createEnvironment("Test"), null, false);
+
+        assertTrue(provider.hasAssetAdministrationShell("https://example.com/shells/Test"));
+        assertTrue(provider.hasAssetAdministrationShell("https://example.com/assets/Test"));
+        assertEquals(SUBMODELS_PER_ASSET, provider.availableSubmodelIds("https://example.com/assets/Test").size());
+        assertEquals("Test", provider.availableAssetAdministrationShellIds().get("https://example.com/shells/Test"));
+        assertNull(provider.getSubmodel("https://example.com/assets/Unknown", "https://example.com/submodels/Test/0"));
+    }
+
+    @Test
+    void failedAddKeepsNoSubmodels() {
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        provider.addEnvironment(createEnvironment("Existing"), null, false);
+
+        // A shell which is already provided is rejected before its submodels are bound
+        Environment duplicate = createEnvironment("Existing");
+        duplicate.getSubmodels().get(0).setId("https://example.com/submodels/Existing/Other");
+        assertThrows(IllegalStateException.class, () -> provider.addEnvironment(duplicate, null, false));
+        assertNull(provider.getSubmodel("https://example.com/assets/Existing", "https://example.com/submodels/Existing/Other"));
+        assertEquals(SUBMODELS_PER_ASSET, provider.availableSubmodelIds("https://example.com/assets/Existing").size());
+
+        // A submodel INSTANCE contained twice rolls back the submodels added before it
+        Environment invalid = createEnvironment("Invalid");
+        invalid.getSubmodels().add(invalid.getSubmodels().get(0));
+        assertThrows(IllegalStateException.class, () -> provider.addEnvironment(invalid, null, false));
+        assertFalse(provider.hasAssetAdministrationShell("https://example.com/assets/Invalid"));
+        assertTrue(provider.availableSubmodelIds("https://example.com/assets/Invalid").isEmpty());
+        assertTrue(provider.availableSubmodelIds("https://example.com/shells/Invalid").isEmpty());
+    }
+
+    @Test
+    void repeatedStringsArePooled() {
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        provider.addEnvironment(createEnvironment("First"), null, false);
+        provider.addEnvironment(createEnvironment("Second"), null, false);
+
+        assertSame(provider.getSubmodel("https://example.com/assets/First", "https://example.com/submodels/First/0").getIdShort(),
+                provider.getSubmodel("https://example.com/assets/Second", "https://example.com/submodels/Second/0").getIdShort());
+        assertTrue(provider.getStringPoolStats().deduplicated() >= SUBMODELS_PER_ASSET);
+    }
+
+    @Test
+    void compactSubmodels() {
+        CompactSubmodelStore store = new CompactSubmodelStore(1);
+        InMemoryAssetProvider provider = new InMemoryAssetProvider(1, 1, store);
+        Environment env = createEnvironment("Compact");
+        provider.addEnvironment(env, null, false);
+
+        Submodel submodel = provider.getSubmodel("https://example.com/assets/Compact", "https://example.com/submodels/Compact/1");
+        assertEquals("Submodel1", submodel.getIdShort());
+        assertEquals(ModellingKind.INSTANCE, submodel.getKind());
+        assertSame(submodel, provider.getSubmodel("https://example.com/shells/Compact", "https://example.com/submodels/Compact/1"));
+        assertEquals(SUBMODELS_PER_ASSET, provider.availableSubmodelIds("https://example.com/assets/Compact").size());
+        // The submodels are shared by the shell ID and the globalAssetId
+        assertTrue(provider.getMemoryReport().contains("compact submodels: " + SUBMODELS_PER_ASSET + " submodels"));
+    }
+
+    @Test
+    void replaceFile() {
+        File file = new File("replaced.json");
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        provider.addEnvironment(createEnvironment("Old"), file, false);
+        Environment added = createEnvironment("New");
+        Environment changed = createEnvironment("Old");
+        changed.getSubmodels().get(0).setIdShort("Changed");
+        List<AssetAdministrationShell> shells = new ArrayList<>(added.getAssetAdministrationShells());
+        shells.addAll(changed.getAssetAdministrationShells());
+        List<Submodel> submodels = new ArrayList<>(added.getSubmodels());
+        submodels.addAll(changed.getSubmodels());
+        Environment updated = new DefaultEnvironment.Builder().assetAdministrationShells(shells).submodels(submodels).build();
+
+        // Registering the same submodels again is rejected, replacing the file is not
+        assertThrows(IllegalStateException.class, () -> provider.addEnvironment(createEnvironment("Old"), null, false));
+        provider.replaceFile(file, updated, AssetsProvider.AssetType.JSON, false);
+        assertTrue(provider.hasAssetAdministrationShell("https://example.com/assets/New"));
+        assertEquals("Changed", provider.getSubmodel("https://example.com/assets/Old", "https://example.com/submodels/Old/0").getIdShort());
+
+        provider.replaceFile(file, createEnvironment("New"), AssetsProvider.AssetType.JSON, false);
+        assertFalse(provider.hasAssetAdministrationShell("https://example.com/shells/Old"));
+        assertFalse(provider.availableAssetAdministrationShellIds().containsKey("https://example.com/shells/Old"));
+        // An unchanged shell (equal to the registered one) stays provided with its submodels
+        provider.replaceFile(file, createEnvironment("New"), AssetsProvider.AssetType.JSON, false);
+        assertTrue(provider.hasAssetAdministrationShell("https://example.com/assets/New"));
+        assertEquals(SUBMODELS_PER_ASSET, provider.availableSubmodelIds("https://example.com/assets/New").size());
+
+        provider.replaceFile(file, null, AssetsProvider.AssetType.JSON, false);
+        assertTrue(provider.availableAssetAdministrationShellIds().isEmpty());
+        assertTrue(provider.getFiles().isEmpty());
+    }
+
+    @Test
+    void removeAssetsOfFile() {
+        File first = new File("first.json");
+        File second = new File("second.json");
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        provider.addEnvironment(createEnvironment("Removed"), first, true);
+        List<String> ids = List.of("https://example.com/shells/Removed");
+
+        // The shell was removed and added again from another file before a late removal of the first file
+        provider.removeAssets(ids);
+        provider.addEnvironment(createEnvironment("Removed"), second, true);
+        provider.removeAssets(ids, first);
+        assertTrue(provider.hasAssetAdministrationShell("https://example.com/shells/Removed"));
+        assertEquals(SUBMODELS_PER_ASSET, provider.availableSubmodelIds("https://example.com/assets/Removed").size());
+
+        provider.removeAssets(ids, second);
+        assertFalse(provider.hasAssetAdministrationShell("https://example.com/shells/Removed"));
+        assertFalse(provider.hasAssetAdministrationShell("https://example.com/assets/Removed"));
+        assertTrue(provider.availableSubmodelIds("https://example.com/assets/Removed").isEmpty());
+    }
+
+    @Test
+    void getSubmodelElement() {
+        Property property = new DefaultProperty.Builder().idShort("Value").value("42").build();
+        SubmodelElementCollection entry = new DefaultSubmodelElementCollection.Builder().value(property).build();
+        SubmodelElementList list = new DefaultSubmodelElementList.Builder().idShort("List").value(entry).build();
+        Submodel submodel = new DefaultSubmodel.Builder()
+                .id("https://example.com/submodels/Nested")
+                .kind(ModellingKind.INSTANCE)
+                .submodelElements(new DefaultSubmodelElementCollection.Builder().idShort("Collection").value(list).build())
+                .build();
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        provider.addSubmodel("https://example.com/assets/Nested", submodel);
+
+        assertSame(list, provider.getSubmodelElement("https://example.com/assets/Nested", submodel.getId(), "Collection.List"));
+        assertSame(entry, provider.getSubmodelElement("https://example.com/assets/Nested", submodel.getId(), "Collection.List[0]"));
+        assertSame(property, provider.getSubmodelElement("https://example.com/assets/Nested", submodel.getId(), "Collection.List[0].Value"));
+        assertSame(property, provider.getSubmodelElement("https://example.com/assets/Nested", submodel.getId(), "Collection.List[00].Value"));
+        assertNull(provider.getSubmodelElement("https://example.com/assets/Nested", submodel.getId(), "Collection.List[1]"));
+        assertNull(provider.getSubmodelElement("https://example.com/assets/Nested", submodel.getId(), "Collection..List"));
+        assertNull(provider.getSubmodelElement("https://example.com/assets/Nested", submodel.getId(), "[0]"));
+    }
+
+    @Test
+    void getSubmodelsBySemanticId() {
+        Submodel footprint = new DefaultSubmodel.Builder()
+                .id("https://example.com/submodels/Footprint")
+                .kind(ModellingKind.INSTANCE)
+                .semanticId(new DefaultReference.Builder()
+                        .type(ReferenceTypes.EXTERNAL_REFERENCE)
+                        .keys(new DefaultKey.Builder().type(KeyTypes.GLOBAL_REFERENCE).value(SemanticIds.CARBON_FOOTPRINT_1_0).build())
+                        .build())
+                .build();
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        provider.addEnvironment(createEnvironment("Test"), null, false);
+        provider.addSubmodel("https://example.com/assets/Test", footprint);
+
+        assertEquals(List.of(footprint), provider.getSubmodelsBySemanticId("https://example.com/assets/Test", List.of(SemanticIds.CARBON_FOOTPRINT_0_9, SemanticIds.CARBON_FOOTPRINT_1_0)));
+        assertEquals(List.of(), provider.getSubmodelsBySemanticId("https://example.com/assets/Test", List.of(SemanticIds.HIERARCHY_STRUCTURE)));
+        assertEquals(List.of(), provider.getSubmodelsBySemanticId("https://example.com/assets/Unknown", List.of(SemanticIds.CARBON_FOOTPRINT_1_0)));
+    }
+
+    @Test
+    void concurrentReadsAndUploads() throws InterruptedException {
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < ASSETS_PER_WRITER; i++) {
+                        provider.addEnvironment(createEnvironment("Asset_" + writer + "_" + i), null, i % 2 == 0);
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                } finally {
+                    writersDone.countDown();
+                }
+            });
+        }
+        for (int r = 0; r < READERS; r++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    while (running.get()) {
+                        for (String id: provider.availableAssetAdministrationShellIds().keySet()) {
+                            AssetAdministrationShell shell = provider.getAssetAdministrationShell(id);
+                            assertNotNull(shell, "Listed shell " + id + " is not available");
+                            for (Reference reference: shell.getSubmodels()) {
+                                String submodelId = AasUtil.getSubmodelId(reference);
+                                assertNotNull(provider.getSubmodel(id, submodelId), "Submodel " + submodelId + " of visible shell " + id + " is missing");
+                            }
+                        }
+                        provider.getAssetAdministrationShellDescriptors().forEach(d -> assertNotNull(d.getId()));
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            });
+        }
+
+        start.countDown();
+        assertTrue(writersDone.await(60, TimeUnit.SECONDS));
+        running.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(failures.isEmpty(), () -> "Failures: " + failures);
+        assertEquals(WRITERS * ASSETS_PER_WRITER / 2, provider.availableAssetAdministrationShellIds().size());
+        for (int w = 0; w < WRITERS; w++) {
+            for (int i = 0; i < ASSETS_PER_WRITER; i++) {
+                String globalAssetId = "https://example.com/assets/Asset_" + w + "_" + i;
+                assertTrue(provider.hasAssetAdministrationShell(globalAssetId));
+                assertEquals(SUBMODELS_PER_ASSET, provider.availableSubmodelIds(globalAssetId).size());
+            }
+        }
+    }
+
+    /**
+     * Create a version of an environment whose submodels all have the same semantic ID
+     */
+    private static Environment createVersion(String name, String semanticId, int version) {
+        Environment env = createEnvironment(name);
+        for (Submodel submodel: env.getSubmodels()) {
+            submodel.setSemanticId(new DefaultReference.Builder()
+                    .type(ReferenceTypes.EXTERNAL_REFERENCE)
+                    .keys(new DefaultKey.Builder().type(KeyTypes.GLOBAL_REFERENCE).value(semanticId).build())
+                    .build());
+        }
+        env.getSubmodels().get(0).setIdShort("Version" + version);
+        return env;
+    }
+
+    @Test
+    void concurrentReadsAndReplacements() throws InterruptedException {
+        String semanticId = "https://example.com/semantics/Replaced";
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        for (int w = 0; w < WRITERS; w++) {
+            provider.addEnvironment(createVersion("Replaced_" + w, semanticId, 0), new File("replaced" + w + ".json"), false);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    File file = new File("replaced" + writer + ".json");
+                    for (int i = 1; i <= REPLACEMENTS_PER_WRITER; i++) {
+                        provider.replaceFile(file, createVersion("Replaced_" + writer, semanticId, i), AssetsProvider.AssetType.JSON, false);
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                } finally {
+                    writersDone.countDown();
+                }
+            });
+        }
+        for (int r = 0; r < READERS; r++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    while (running.get()) {
+                        for (int w = 0; w < WRITERS; w++) {
+                            String globalAssetId = "https://example.com/assets/Replaced_" + w;
+                            assertTrue(provider.hasAssetAdministrationShell(globalAssetId), "Replaced shell " + globalAssetId + " is not available");
+                            assertEquals(SUBMODELS_PER_ASSET, provider.availableSubmodelIds(globalAssetId).size(),
+                                    "Submodels of replaced shell " + globalAssetId + " are missing");
+                            assertEquals(SUBMODELS_PER_ASSET, provider.getSubmodelsBySemanticId(globalAssetId, List.of(semanticId)).size(),
+                                    "Semantic IDs of replaced shell " + globalAssetId + " are missing");
+                        }
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            });
+        }
+
+        start.countDown();
+        assertTrue(writersDone.await(60, TimeUnit.SECONDS));
+        running.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(failures.isEmpty(), () -> "Failures: " + failures);
+        for (int w = 0; w < WRITERS; w++) {
+            assertEquals("Version" + REPLACEMENTS_PER_WRITER,
+                    provider.getSubmodel("https://example.com/assets/Replaced_" + w, "https://example.com/submodels/Replaced_" + w + "/0").getIdShort());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package de.movabo.carbonfootprintapi.assets;
+
+import org.eclipse.digitaltwin.aas4j.v3.dataformat.json.JsonSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelAssetLoaderTests {
+
+    private static final int FILES = 20;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Write the environments Asset_0 to Asset_{count - 1} as .json-files, followed by a broken file
+     */
+    static File[] writeFiles(Path directory, int count) throws Exception {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            File file = directory.resolve("asset" + i + ".json").toFile();
+            Files.writeString(file.toPath(), new JsonSerializer().write(InMemoryAssetProviderTests.createEnvironment("Asset_" + i)), StandardCharsets.UTF_8);
+            files.add(file);
+        }
+        File broken = directory.resolve("broken.json").toFile();
+        Files.writeString(broken.toPath(), "{\"assetAdministrationShells\": [", StandardCharsets.UTF_8);
+        files.add(broken);
+        return files.toArray(File[]::new);
+    }
+
+    @Test
+    void loadInParallel() throws Exception {
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        new ParallelAssetLoader(provider, 4, false, null).load(writeFiles(directory, FILES), new File[0]);
+
+        // The broken file does not stop the other files from being loaded
+        assertEquals(FILES, provider.availableAssetAdministrationShellIds().size());
+        assertEquals(FILES, provider.getFiles().size());
+        for (int i = 0; i < FILES; i++) {
+            String globalAssetId = "https://example.com/assets/Asset_" + i;
+            assertTrue(provider.hasAssetAdministrationShell(globalAssetId));
+            assertNotNull(provider.getSubmodel(globalAssetId, "https://example.com/submodels/Asset_" + i + "/0"));
+        }
+    }
+
+    @Test
+    void loadLazily() throws Exception {
+        InMemoryAssetProvider provider = new InMemoryAssetProvider(4, 4);
+        // More files than the read-ahead window of a single thread
+        new ParallelAssetLoader(provider, 1, true, null).load(writeFiles(directory, FILES), new File[0]);
+
+        assertEquals(FILES, provider.availableAssetAdministrationShellIds().size());
+        assertEquals(0, provider.getLazyEnvironmentCacheStats().requestCount());
+        for (int i = 0; i < FILES; i++) {
+            String globalAssetId = "https://example.com/assets/Asset_" + i;
+            assertEquals(InMemoryAssetProviderTests.SUBMODELS_PER_ASSET, provider.availableSubmodelIds(globalAssetId).size());
+            // The submodels are not kept by the loader, but deserialized from the file on demand
+            assertEquals("Submodel0", provider.getSubmodel(globalAssetId, "https://example.com/submodels/Asset_" + i + "/0").getIdShort());
+        }
+        assertEquals(FILES, provider.getLazyEnvironmentCacheStats().missCount());
+
+        // Files are forgotten when their shells are removed or replaced
+        assertEquals(FILES, provider.getLazyFileCount());
+        provider.removeAssets(List.of("https://example.com/shells/Asset_0"));
+        assertEquals(FILES - 1, provider.getLazyFileCount());
+        provider.replaceFile(directory.resolve("asset1.json").toFile(), null, AssetsProvider.AssetType.AUTO, true);
+        assertEquals(FILES - 2, provider.getLazyFileCount());
+    }
+}
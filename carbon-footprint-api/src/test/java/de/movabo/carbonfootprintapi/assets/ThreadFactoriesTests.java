@@ -0,0 +1,45 @@
+package de.movabo.carbonfootprintapi.assets;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadFactoriesTests {
+
+    @Test
+    void platformThreads() {
+        ThreadFactory factory = ThreadFactories.create("platform", false);
+        Thread first = factory.newThread(() -> {});
+        Thread second = factory.newThread(() -> {});
+        assertFalse(first.isVirtual());
+        assertTrue(first.isDaemon());
+        assertEquals("platform-0", first.getName());
+        assertEquals("platform-1", second.getName());
+    }
+
+    @Test
+    void virtualThreads() {
+        ThreadFactory factory = ThreadFactories.create("virtual", true);
+        Thread first = factory.newThread(() -> {});
+        Thread second = factory.newThread(() -> {});
+        assertTrue(first.isVirtual());
+        assertEquals("virtual-0", first.getName());
+        assertEquals("virtual-1", second.getName());
+    }
+
+    @Test
+    void executors() throws Exception {
+        try (ExecutorService platform = ThreadFactories.newExecutor("pool", 2, false);
+             ExecutorService virtual = ThreadFactories.newExecutor("tasks", 2, true)) {
+            Thread pooled = platform.submit(Thread::currentThread).get();
+            assertFalse(pooled.isVirtual());
+            assertTrue(pooled.getName().startsWith("pool-"));
+            Thread task = virtual.submit(Thread::currentThread).get();
+            assertTrue(task.isVirtual());
+            assertTrue(task.getName().startsWith("tasks-"));
+        }
+    }
+}
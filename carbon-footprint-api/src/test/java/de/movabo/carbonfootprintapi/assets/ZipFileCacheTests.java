@@ -0,0 +1,99 @@
+package de.movabo.carbonfootprintapi.assets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipFileCacheTests {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Write a zip file with a single entry
+     */
+    private File writeZip(String name, String content) throws IOException {
+        File file = directory.resolve(name).toFile();
+        try (OutputStream out = Files.newOutputStream(file.toPath()); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("entry.txt"));
+            zip.write(content.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return file;
+    }
+
+    private static String read(ZipFile zipFile) throws IOException {
+        try (InputStream in = zipFile.getInputStream(zipFile.getEntry("entry.txt"))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void handlesAreShared() throws Exception {
+        File file = writeZip("shared.zip", "shared");
+        ZipFileCache cache = new ZipFileCache(4);
+        try (ZipFileCache.Lease first = cache.open(file); ZipFileCache.Lease second = cache.open(file)) {
+            assertSame(first.zipFile(), second.zipFile());
+            assertEquals("shared", read(second.zipFile()));
+        }
+        assertEquals(1, cache.stats().missCount());
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    void evictedHandleIsClosedAfterLastLease() throws Exception {
+        File first = writeZip("first.zip", "first");
+        File second = writeZip("second.zip", "second");
+        ZipFileCache cache = new ZipFileCache(1);
+        ZipFileCache.Lease lease = cache.open(first);
+        // Evicts the handle of the first file while it is still leased
+        cache.open(second).close();
+
+        assertEquals("first", read(lease.zipFile()));
+        lease.close();
+        lease.close();
+        assertThrows(IllegalStateException.class, () -> read(lease.zipFile()));
+    }
+
+    @Test
+    void invalidatedHandleIsClosedAfterLastLease() throws Exception {
+        File file = writeZip("invalidated.zip", "invalidated");
+        ZipFileCache cache = new ZipFileCache(4);
+        ZipFileCache.Lease lease = cache.open(file);
+        cache.invalidate(file);
+
+        assertEquals("invalidated", read(lease.zipFile()));
+        try (ZipFileCache.Lease reopened = cache.open(file)) {
+            assertNotSame(lease.zipFile(), reopened.zipFile());
+        }
+        lease.close();
+        assertThrows(IllegalStateException.class, () -> read(lease.zipFile()));
+    }
+
+    @Test
+    void changedFileIsReopened() throws Exception {
+        File file = writeZip("changed.zip", "old");
+        ZipFileCache cache = new ZipFileCache(4);
+        ZipFile old;
+        try (ZipFileCache.Lease lease = cache.open(file)) {
+            old = lease.zipFile();
+        }
+        writeZip("changed.zip", "new content");
+        try (ZipFileCache.Lease lease = cache.open(file)) {
+            assertNotSame(old, lease.zipFile());
+            assertEquals("new content", read(lease.zipFile()));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package de.movabo.carbonfootprintapi.config;
+
+import de.movabo.carbonfootprintapi.assets.ExternalShellFetcher;
+import de.movabo.carbonfootprintapi.assets.InMemoryAssetProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.digitaltwin.aas4j.v3.model.*;
+import org.eclipse.digitaltwin.aas4j.v3.model.impl.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetMetricsTests {
+
+    /**
+     * Create an environment with one shell and one submodel
+     */
+    private static Environment createEnvironment(String name) {
+        String submodelId = "https://example.com/submodels/" + name;
+        return new DefaultEnvironment.Builder()
+                .assetAdministrationShells(new DefaultAssetAdministrationShell.Builder()
+                        .id("https://example.com/shells/" + name)
+                        .idShort(name)
+                        .assetInformation(new DefaultAssetInformation.Builder()
+                                .assetKind(AssetKind.INSTANCE)
+                                .globalAssetId("https://example.com/assets/" + name)
+                                .build())
+                        .submodels(new DefaultReference.Builder()
+                                .type(ReferenceTypes.MODEL_REFERENCE)
+                                .keys(new DefaultKey.Builder().type(KeyTypes.SUBMODEL).value(submodelId).build())
+                                .build())
+                        .build())
+                .submodels(new DefaultSubmodel.Builder()
+                        .id(submodelId)
+                        .idShort(name)
+                        .kind(ModellingKind.INSTANCE)
+                        .build())
+                .build();
+    }
+
+    @Test
+    void bindTo() throws Exception {
+        InMemoryAssetProvider provider = new InMemoryAssetProvider();
+        provider.addEnvironment(createEnvironment("Public"), null, false);
+        provider.addEnvironment(createEnvironment("Hidden"), null, true);
+        CachingJsonHttpMessageConverter jsonConverter = new CachingJsonHttpMessageConverter(new JacksonConfig().objectMapper(), 1024 * 1024);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (ExternalShellFetcher fetcher = new ExternalShellFetcher(provider, Duration.ofSeconds(1), Duration.ofSeconds(1), 1024, Duration.ofMinutes(1), 1)) {
+            new AssetMetrics(provider, fetcher, jsonConverter).bindTo(registry);
+
+            assertEquals(1, registry.get("aas.shells").tag("visibility", "public").gauge().value());
+            assertEquals(1, registry.get("aas.shells").tag("visibility", "hidden").gauge().value());
+            assertEquals(2, registry.get("aas.submodels").gauge().value());
+            assertTrue(registry.get("aas.heap.per.shell").gauge().value() > 0);
+
+            AssetAdministrationShell shell = provider.getAssetAdministrationShell("https://example.com/assets/Public");
+            jsonConverter.toJson(shell, AssetAdministrationShell.class);
+            jsonConverter.toJson(shell, AssetAdministrationShell.class);
+            assertEquals(1, registry.get("cache.gets").tags("cache", "json", "result", "hit").functionCounter().count());
+            assertEquals(1, registry.get("cache.gets").tags("cache", "json", "result", "miss").functionCounter().count());
+            assertEquals(0, registry.get("cache.evictions").tag("cache", "external-shells").functionCounter().count());
+            // The submodels are not kept compact, so there is no cache of materialized submodels
+            assertNull(registry.find("cache.gets").tag("cache", "compact-submodels").functionCounter());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package de.movabo.carbonfootprintapi.config;
+
+import org.eclipse.digitaltwin.aas4j.v3.model.AssetAdministrationShell;
+import org.eclipse.digitaltwin.aas4j.v3.model.AssetKind;
+import org.eclipse.digitaltwin.aas4j.v3.model.impl.DefaultAssetAdministrationShell;
+import org.eclipse.digitaltwin.aas4j.v3.model.impl.DefaultAssetInformation;
+import org.eclipse.digitaltwin.aas4j.v3.model.impl.DefaultLangStringTextType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingJsonHttpMessageConverterTests {
+
+    private final CachingJsonHttpMessageConverter converter = new CachingJsonHttpMessageConverter(new JacksonConfig().objectMapper(), 1024 * 1024);
+
+    /**
+     * Create a shell, with a description of the given length to control the size of its JSON
+     */
+    private static AssetAdministrationShell createShell(String name, int descriptionLength) {
+        return new DefaultAssetAdministrationShell.Builder()
+                .id("https://example.com/shells/" + name)
+                .idShort(name)
+                .description(new DefaultLangStringTextType.Builder().language("en").text("x".repeat(descriptionLength)).build())
+                .assetInformation(new DefaultAssetInformation.Builder()
+                        .assetKind(AssetKind.INSTANCE)
+                        .globalAssetId("https://example.com/assets/" + name)
+                        .build())
+                .build();
+    }
+
+    private MockHttpOutputMessage write(Object object, Class<?> type) throws Exception {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(object, type, MediaType.APPLICATION_JSON, message);
+        return message;
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void serializationIsCached() throws Exception {
+        AssetAdministrationShell shell = createShell("Cached", 10);
+        byte[] json = converter.toJson(shell, AssetAdministrationShell.class);
+        // Serialized by the runtime class of the shell, like responses which are not cached
+        assertArrayEquals(converter.getObjectMapper().writeValueAsBytes(shell), json);
+        assertArrayEquals(json, converter.toJson(shell, Object.class));
+        assertSame(json, converter.toJson(shell, AssetAdministrationShell.class));
+
+        MockHttpOutputMessage message = write(shell, AssetAdministrationShell.class);
+        assertArrayEquals(json, message.getBodyAsBytes());
+        assertEquals(json.length, message.getHeaders().getContentLength());
+        assertEquals(1, converter.stats().missCount());
+        assertEquals(2, converter.stats().hitCount());
+
+        // An equal, but different shell is serialized on its own
+        assertNotSame(json, converter.toJson(createShell("Cached", 10), AssetAdministrationShell.class));
+        assertEquals(2, converter.stats().missCount());
+    }
+
+    @Test
+    void otherObjectsAreNotCached() throws Exception {
+        List<AssetAdministrationShell> shells = List.of(createShell("Listed", 10));
+        write(shells, List.class);
+        // A shell returned as part of another response is not cached under the shell
+        converter.toJson(shells.get(0), Object.class);
+        assertEquals(0, converter.stats().requestCount());
+    }
+
+    @Test
+    void largeResponsesAreSentCompressed() throws Exception {
+        AssetAdministrationShell shell = createShell("Large", CachingJsonHttpMessageConverter.MIN_COMPRESSED_SIZE);
+        byte[] json = converter.toJson(shell, AssetAdministrationShell.class);
+
+        MockHttpOutputMessage identity = write(shell, AssetAdministrationShell.class);
+        assertArrayEquals(json, identity.getBodyAsBytes());
+        assertNull(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), identity.getHeaders().getVary());
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setHeader(HttpHeaders.ETAG, "\"etag\"");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        MockHttpOutputMessage compressed = write(shell, AssetAdministrationShell.class);
+        assertEquals("gzip", compressed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        // The compressed variant has its own ETag
+        assertEquals("\"etag-gz\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(compressed.getBodyAsBytes().length, compressed.getHeaders().getContentLength());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.getBodyAsBytes()))) {
+            assertArrayEquals(json, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void acceptsGzip() {
+        assertFalse(CachingJsonHttpMessageConverter.acceptsGzip(null));
+        assertFalse(CachingJsonHttpMessageConverter.acceptsGzip(Collections.emptyEnumeration()));
+        assertTrue(CachingJsonHttpMessageConverter.acceptsGzip(Collections.enumeration(List.of("deflate", "GZIP;q=0.5"))));
+        assertTrue(CachingJsonHttpMessageConverter.acceptsGzip(Collections.enumeration(List.of("*"))));
+        assertFalse(CachingJsonHttpMessageConverter.acceptsGzip(Collections.enumeration(List.of("gzip;q=0, *"))));
+        assertFalse(CachingJsonHttpMessageConverter.acceptsGzip(Collections.enumeration(List.of("br"))));
+    }
+}
@@ -0,0 +1,97 @@
+package de.movabo.carbonfootprintapi.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonEnumDefaultValue;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JacksonConfigTests {
+
+    enum Unit {
+        KILOGRAM_CO2_EQUIVALENT, LITRE
+    }
+
+    enum Annotated {
+        @JsonProperty("kg") KILOGRAM,
+        LITRE,
+        @JsonEnumDefaultValue UNKNOWN
+    }
+
+    enum Coded {
+        FIRST("f"), SECOND("s");
+
+        private final String code;
+
+        Coded(String code) {
+            this.code = code;
+        }
+
+        @JsonValue
+        String getCode() {
+            return code;
+        }
+    }
+
+    enum Created {
+        FIRST, SECOND;
+
+        @JsonCreator
+        static Created of(String value) {
+            return value.equals("second") ? SECOND : FIRST;
+        }
+    }
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    @Test
+    void camelCaseEnums() throws Exception {
+        assertEquals("\"KilogramCo2Equivalent\"", objectMapper.writeValueAsString(Unit.KILOGRAM_CO2_EQUIVALENT));
+        assertEquals(Unit.KILOGRAM_CO2_EQUIVALENT, objectMapper.readValue("\"KilogramCo2Equivalent\"", Unit.class));
+        // The names of the constants are accepted as well
+        assertEquals(Unit.KILOGRAM_CO2_EQUIVALENT, objectMapper.readValue("\"KILOGRAM_CO2_EQUIVALENT\"", Unit.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("\"Unknown\"", Unit.class));
+    }
+
+    @Test
+    void ordinalEnums() throws Exception {
+        Unit constant = Unit.LITRE;
+        assertEquals(constant, objectMapper.readValue(String.valueOf(constant.ordinal()), Unit.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("-1", Unit.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue(String.valueOf(Unit.values().length), Unit.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.copy()
+                .enable(DeserializationFeature.FAIL_ON_NUMBERS_FOR_ENUMS)
+                .readValue(String.valueOf(constant.ordinal()), Unit.class));
+    }
+
+    @Test
+    void annotatedEnums() throws Exception {
+        assertEquals(Annotated.KILOGRAM, objectMapper.readValue("\"kg\"", Annotated.class));
+        assertEquals(Annotated.KILOGRAM, objectMapper.readValue("\"Kilogram\"", Annotated.class));
+        assertEquals(Coded.SECOND, objectMapper.readValue("\"s\"", Coded.class));
+        // Enums with a creator are only deserialized by the creator
+        assertEquals(Created.FIRST, objectMapper.readValue("\"SECOND\"", Created.class));
+        assertEquals(Created.SECOND, objectMapper.readValue("\"second\"", Created.class));
+    }
+
+    @Test
+    void enumFeatures() throws Exception {
+        assertEquals(Annotated.UNKNOWN, objectMapper.readerFor(Annotated.class)
+                .with(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_USING_DEFAULT_VALUE)
+                .readValue("\"Gallon\""));
+        assertNull(objectMapper.readerFor(Unit.class)
+                .with(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL)
+                .readValue("\"Gallon\""));
+        ObjectMapper caseInsensitive = objectMapper.copy();
+        caseInsensitive.configOverride(Unit.class)
+                .setFormat(JsonFormat.Value.empty().withFeature(JsonFormat.Feature.ACCEPT_CASE_INSENSITIVE_PROPERTIES));
+        assertEquals(Unit.LITRE, caseInsensitive.readValue("\"litre\"", Unit.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("\"litre\"", Unit.class));
+    }
+}